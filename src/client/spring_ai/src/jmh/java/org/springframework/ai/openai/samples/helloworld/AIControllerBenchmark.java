@@ -0,0 +1,186 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Hot paths of AIController with the LLM, the embedding model and the vector store
+ * stubbed out, so only the controller's own work is measured.
+ * Chunk sizes match the README configurations: 512 tokens (Ollama) and 8191 tokens (OpenAI).
+ *
+ * mvn -P openai,jmh test-compile exec:exec -Djmh.args="AIControllerBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AIControllerBenchmark {
+
+	private static final String QUESTION = "Can I use any kind of development environment to run the example?";
+
+	@Param({ "512", "8191" })
+	public int chunkTokens;
+
+	@Param({ "4" })
+	public int topK;
+
+	private AIController controller;
+
+	private RagPipeline pipeline;
+
+	private List<Document> documents;
+
+	private Map<String, Object> request;
+
+	private String answer;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		documents = new ArrayList<>();
+		for (int i = 0; i < topK; i++) {
+			documents.add(new Document(String.format("%016X", random.nextLong()), BenchmarkData.text(chunkTokens, random),
+					Map.of("source", "get-started-java-development.pdf", "page", i)));
+		}
+		answer = BenchmarkData.text(256, random);
+		float[] vector = BenchmarkData.vector(1024, random);
+
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RagMetrics metrics = new RagMetrics(registry, "benchmark");
+		StageExecutor stages = new StageExecutor(registry);
+		ReflectionTestUtils.setField(stages, "total", Duration.ofMinutes(2));
+		ReflectionTestUtils.setField(stages, "embeddingCap", Duration.ofSeconds(10));
+		ReflectionTestUtils.setField(stages, "searchCap", Duration.ofSeconds(10));
+		pipeline = new RagPipeline(stubVectorStore(documents), stubEmbeddingModel(vector),
+				new QueryEmbeddingCache(registry, true, 64 * 1024 * 1024, Duration.ofHours(1)),
+				new SemanticAnswerCache(null, new ObjectMapper(), registry), metrics, stages,
+				new CompletionCache(null, new DefaultListableBeanFactory().getBeanProvider(ChatModel.class), null, null,
+						registry));
+		ReflectionTestUtils.setField(pipeline, "TOPK", topK);
+		ReflectionTestUtils.setField(pipeline, "contextInstr", "You are an assistant for question-answering tasks.");
+		controller = new AIController(ChatClient.builder(stubChatModel(answer)).build(), pipeline, metrics,
+				new CompletionCoalescer(new DefaultListableBeanFactory().getBeanProvider(ChatModel.class), registry),
+				AdaptiveConcurrencyLimiter.fromEnvironment("llm", new StandardEnvironment(), registry),
+				AdaptiveConcurrencyLimiter.fromEnvironment("completions", new StandardEnvironment(), registry),
+				AdaptiveConcurrencyLimiter.fromEnvironment("batch", new StandardEnvironment(), registry), stages,
+				null);
+		ReflectionTestUtils.setField(controller, "streamTimeout", Duration.ofMinutes(5));
+		request = Map.of("message", QUESTION);
+	}
+
+	@Benchmark
+	public StringBuilder createContext() {
+		return pipeline.createContext(documents);
+	}
+
+	@Benchmark
+	public Prompt promptEngineering() {
+		return pipeline.promptEngineering(QUESTION, "");
+	}
+
+	@Benchmark
+	public Prompt promptTemplateCreate() {
+		return new PromptTemplate("DOCUMENTS:\n{documents}\n\nQUESTION:\n{question}\n\nINSTRUCTIONS:")
+			.create(Map.of("documents", documents.get(0).getFormattedContent(), "question", QUESTION));
+	}
+
+	@Benchmark
+	public Map<String, Object> choices() {
+		return RagPipeline.choices(answer);
+	}
+
+	@Benchmark
+	public Object completionRag() {
+		return controller.completionRag(request);
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> search() {
+		return controller.search(QUESTION, topK);
+	}
+
+	static ChatModel stubChatModel(String answer) {
+		return new ChatModel() {
+			@Override
+			public ChatResponse call(Prompt prompt) {
+				return new ChatResponse(List.of(new Generation(new AssistantMessage(answer))));
+			}
+		};
+	}
+
+	static EmbeddingModel stubEmbeddingModel(float[] vector) {
+		return new EmbeddingModel() {
+			@Override
+			public EmbeddingResponse call(EmbeddingRequest request) {
+				List<Embedding> embeddings = new ArrayList<>();
+				for (int i = 0; i < request.getInstructions().size(); i++) {
+					embeddings.add(new Embedding(vector, i));
+				}
+				return new EmbeddingResponse(embeddings);
+			}
+
+			@Override
+			public float[] embed(Document document) {
+				return vector;
+			}
+		};
+	}
+
+	static VectorStore stubVectorStore(List<Document> documents) {
+		// Proxy rather than an implementation: only similaritySearch is exercised
+		return (VectorStore) Proxy.newProxyInstance(VectorStore.class.getClassLoader(), new Class<?>[] { VectorStore.class },
+				(proxy, method, args) -> switch (method.getName()) {
+					case "similaritySearch" -> documents;
+					case "getName" -> "stub";
+					case "toString" -> "StubVectorStore";
+					case "hashCode" -> System.identityHashCode(proxy);
+					case "equals" -> proxy == args[0];
+					default -> null;
+				});
+	}
+
+}
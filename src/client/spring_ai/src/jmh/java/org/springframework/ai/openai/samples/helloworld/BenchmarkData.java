@@ -0,0 +1,52 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.Random;
+
+/**
+ * Deterministic synthetic chunks and embeddings for the benchmarks.
+ */
+final class BenchmarkData {
+
+	private static final String[] WORDS = { "the", "database", "connection", "application", "Java", "driver",
+			"Oracle", "configure", "example", "service", "vector", "index", "query", "table", "Spring", "Boot",
+			"deployment", "environment", "install", "JDBC", "pool", "schema", "statement", "result", "using",
+			"with", "and", "for", "to", "of", "in", "is" };
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * About {@code tokens} tokens of English-like text, counting 0.75 words per token.
+	 */
+	static String text(int tokens, Random random) {
+		int words = tokens * 3 / 4;
+		StringBuilder text = new StringBuilder(words * 7);
+		for (int i = 0; i < words; i++) {
+			text.append(WORDS[random.nextInt(WORDS.length)]).append(i % 17 == 16 ? ".\n" : " ");
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Unit-length vector with Gaussian components, like a normalized embedding.
+	 */
+	static float[] vector(int dimensions, Random random) {
+		float[] vector = new float[dimensions];
+		double norm = 0;
+		for (int i = 0; i < dimensions; i++) {
+			vector[i] = (float) random.nextGaussian();
+			norm += vector[i] * vector[i];
+		}
+		float scale = (float) (1 / Math.sqrt(norm));
+		for (int i = 0; i < dimensions; i++) {
+			vector[i] *= scale;
+		}
+		return vector;
+	}
+
+}
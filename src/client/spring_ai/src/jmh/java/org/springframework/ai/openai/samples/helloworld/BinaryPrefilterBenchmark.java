@@ -0,0 +1,94 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Recall against latency of the BinaryIndex: a Hamming scan of the sign bits keeping
+ * topK * rescoreFactor candidates, rescored in float32, against the exact FlatIndex
+ * scan of the float32 vectors. recall@topK for each rescoreFactor is printed during
+ * setup; 1536 dimensions as text-embedding-3-small.
+ *
+ * mvn -P openai,jmh test-compile exec:exec -Djmh.args="BinaryPrefilterBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryPrefilterBenchmark {
+
+	@Param({ "50000" })
+	public int size;
+
+	@Param({ "1536" })
+	public int dimensions;
+
+	@Param({ "1", "5", "10", "20" })
+	public int rescoreFactor;
+
+	@Param({ "4" })
+	public int topK;
+
+	private BinaryIndex binary;
+
+	private FlatIndex flat;
+
+	private float[][] queries;
+
+	private int next;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		binary = new BinaryIndex(VectorDistance.COSINE, new VectorArena(dimensions, VectorArena.Encoding.BINARY),
+				rescoreFactor);
+		flat = new FlatIndex(VectorDistance.COSINE, new VectorArena(dimensions, VectorArena.Encoding.FLOAT32), 1);
+		for (float[] vector : VectorSearchBenchmark.clustered(size, dimensions, random)) {
+			binary.add(vector);
+			flat.add(vector);
+		}
+
+		queries = VectorSearchBenchmark.clustered(256, dimensions, new Random(7));
+		int found = 0;
+		for (float[] query : queries) {
+			Set<Integer> expected = new HashSet<>();
+			flat.search(query, topK).forEach(n -> expected.add(n.node()));
+			found += (int) binary.search(query, topK).stream().filter(n -> expected.contains(n.node())).count();
+		}
+		System.out.printf("%nrecall@%d of the binary prefilter with rescore factor %d: %.3f%n", topK, rescoreFactor,
+				(double) found / (queries.length * topK));
+	}
+
+	@Benchmark
+	public List<VectorIndex.Neighbor> binary() {
+		return binary.search(queries[next++ & 255], topK);
+	}
+
+	@Benchmark
+	public List<VectorIndex.Neighbor> flat() {
+		return flat.search(queries[next++ & 255], topK);
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator for POST /chat/completions: for each concurrency level,
+ * that many clients send requests back to back for a fixed time. Prints throughput,
+ * latency percentiles and errors per level. Run it against the service started with
+ * VIRTUAL_THREADS=false and then VIRTUAL_THREADS=true to compare how many concurrent
+ * requests each mode sustains before latency or errors climb.
+ * Each request asks a distinct question, so that coalescing and the caches don't
+ * answer in place of the pipeline; start the service with the "loadtest" profile too,
+ * which turns them off.
+ *
+ * Arguments: base URL, comma-separated concurrency levels, seconds per level, message.
+ */
+public class CompletionsLoadTest {
+
+	public static void main(String[] args) throws Exception {
+		String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/v1";
+		String[] levels = (args.length > 1 ? args[1] : "50,100,200,400,800").split(",");
+		Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 60);
+		String message = args.length > 3 ? args[3] : "Can I use any kind of development environment to run the example?";
+
+		HttpClient client = HttpClient.newBuilder()
+			.executor(Executors.newVirtualThreadPerTaskExecutor())
+			.connectTimeout(Duration.ofSeconds(10))
+			.build();
+		AtomicLong sent = new AtomicLong();
+
+		System.out.printf("%-12s %10s %10s %10s %10s %10s%n", "concurrency", "requests", "req/s", "p50 ms", "p99 ms",
+				"errors");
+		for (String level : levels) {
+			int concurrency = Integer.parseInt(level.trim());
+			List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+			AtomicLong errors = new AtomicLong();
+			long end = System.nanoTime() + duration.toNanos();
+			try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+				for (int i = 0; i < concurrency; i++) {
+					clients.submit(() -> {
+						while (System.nanoTime() < end) {
+							HttpRequest request = request(baseUrl, message + " (request " + sent.incrementAndGet() + ")");
+							long start = System.nanoTime();
+							try {
+								HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+								if (response.statusCode() != 200 || response.body().contains("\"error\"")) {
+									errors.incrementAndGet();
+								} else {
+									latencies.add(System.nanoTime() - start);
+								}
+							} catch (Exception e) {
+								errors.incrementAndGet();
+							}
+						}
+					});
+				}
+			}
+			List<Long> sorted = new ArrayList<>(latencies);
+			Collections.sort(sorted);
+			System.out.printf("%-12d %10d %10.1f %10d %10d %10d%n", concurrency, sorted.size(),
+					sorted.size() / (double) duration.toSeconds(), percentile(sorted, 0.50), percentile(sorted, 0.99),
+					errors.get());
+		}
+	}
+
+	private static HttpRequest request(String baseUrl, String message) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + "/chat/completions"))
+			.header("Content-Type", "application/json")
+			.timeout(Duration.ofMinutes(5))
+			.POST(HttpRequest.BodyPublishers.ofString("{\"message\": \"" + message.replace("\"", "\\\"") + "\"}"))
+			.build();
+	}
+
+	private static long percentile(List<Long> sorted, double p) {
+		if (sorted.isEmpty()) {
+			return 0;
+		}
+		return sorted.get((int) Math.min(sorted.size() - 1, Math.floor(p * sorted.size()))) / 1_000_000;
+	}
+
+}
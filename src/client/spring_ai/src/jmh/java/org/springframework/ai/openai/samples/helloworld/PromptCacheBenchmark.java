@@ -0,0 +1,153 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.springframework.ai.document.Document;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Sends the prompts built by RagPipeline in the "legacy" and "prefix_cache" layouts
+ * straight to the LLM server, generating a single token, and reports how much of each
+ * prompt the server had to evaluate. Ollama: prompt_eval_count (tokens not served from
+ * the KV cache) and prompt_eval_duration. OpenAI: usage.prompt_tokens_details.cached_tokens,
+ * which only counts for prompts of 1024 tokens or more.
+ *
+ * Requests draw topK documents from a fixed pool and one of a few questions, like a
+ * production mix where popular chunks come back often.
+ *
+ * Columns a provider doesn't report are printed as -1.
+ *
+ * Arguments: ollama|openai, base URL, model, requests per layout, chunk tokens.
+ * OPENAI_API_KEY is read from the environment for OpenAI.
+ */
+public class PromptCacheBenchmark {
+
+	private static final String[] QUESTIONS = {
+			"Can I use any kind of development environment to run the example?",
+			"Which Java version do I need?",
+			"How do I configure the database connection?",
+			"What does the sample application do?" };
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private record Sample(long promptTokens, long evaluatedTokens, long cachedTokens, double evalMillis,
+			double latencyMillis) {
+	}
+
+	public static void main(String[] args) throws Exception {
+		String provider = args.length > 0 ? args[0] : "ollama";
+		String baseUrl = args.length > 1 ? args[1] : "http://localhost:11434";
+		String model = args.length > 2 ? args[2] : "llama3.1";
+		int requests = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+		int chunkTokens = args.length > 4 ? Integer.parseInt(args[4]) : 512;
+		int topK = 4;
+
+		Random random = new Random(42);
+		List<Document> pool = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			pool.add(new Document(String.format("%016X", random.nextLong()), BenchmarkData.text(chunkTokens, random),
+					Map.of("source", "get-started-java-development.pdf", "page", i)));
+		}
+
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+		System.out.printf("%-14s %10s %12s %10s %12s %12s%n", "layout", "prompt tok", "evaluated tok", "cached tok",
+				"eval ms", "latency ms");
+		for (String layout : new String[] { "legacy", "prefix_cache" }) {
+			RagPipeline pipeline = new RagPipeline(null, null, null, null,
+					new RagMetrics(new SimpleMeterRegistry(), "benchmark"), null, null);
+			ReflectionTestUtils.setField(pipeline, "layout", layout);
+			ReflectionTestUtils.setField(pipeline, "contextInstr",
+					"You are an assistant for question-answering tasks. Use the retrieved Documents to answer.");
+
+			// Same request sequence for both layouts
+			Random requestRandom = new Random(7);
+			List<Sample> samples = new ArrayList<>();
+			for (int i = 0; i < requests; i++) {
+				List<Document> documents = new ArrayList<>(pool);
+				Collections.shuffle(documents, requestRandom);
+				// Search results come back in distance order, with a per-query distance
+				List<Document> results = new ArrayList<>();
+				for (Document document : documents.subList(0, topK)) {
+					Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+					metadata.put("distance", requestRandom.nextDouble());
+					results.add(new Document(document.getId(), document.getText(), metadata));
+				}
+				String question = QUESTIONS[requestRandom.nextInt(QUESTIONS.length)];
+				String prompt = pipeline.promptEngineering(question, results).getContents();
+				samples.add("openai".equalsIgnoreCase(provider) ? openai(client, baseUrl, model, prompt)
+						: ollama(client, baseUrl, model, prompt));
+			}
+			System.out.printf("%-14s %10.0f %12.0f %10.0f %12.1f %12.1f%n", layout,
+					samples.stream().mapToLong(Sample::promptTokens).average().orElse(0),
+					samples.stream().mapToLong(Sample::evaluatedTokens).average().orElse(0),
+					samples.stream().mapToLong(Sample::cachedTokens).average().orElse(0),
+					samples.stream().mapToDouble(Sample::evalMillis).average().orElse(0),
+					samples.stream().mapToDouble(Sample::latencyMillis).average().orElse(0));
+		}
+	}
+
+	private static Sample ollama(HttpClient client, String baseUrl, String model, String prompt) throws Exception {
+		String body = MAPPER.writeValueAsString(Map.of(
+				"model", model,
+				"messages", List.of(Map.of("role", "user", "content", prompt)),
+				"stream", false,
+				"options", Map.of("num_predict", 1, "temperature", 0)));
+		long start = System.nanoTime();
+		JsonNode response = post(client, baseUrl + "/api/chat", body, null);
+		double latency = (System.nanoTime() - start) / 1_000_000.0;
+		// prompt_eval_count excludes the tokens reused from the KV cache
+		long evaluated = response.path("prompt_eval_count").asLong();
+		return new Sample(-1, evaluated, -1, response.path("prompt_eval_duration").asLong() / 1_000_000.0, latency);
+	}
+
+	private static Sample openai(HttpClient client, String baseUrl, String model, String prompt) throws Exception {
+		String body = MAPPER.writeValueAsString(Map.of(
+				"model", model,
+				"messages", List.of(Map.of("role", "user", "content", prompt)),
+				"max_tokens", 1,
+				"temperature", 0));
+		long start = System.nanoTime();
+		JsonNode response = post(client, baseUrl + "/v1/chat/completions", body, System.getenv("OPENAI_API_KEY"));
+		double latency = (System.nanoTime() - start) / 1_000_000.0;
+		JsonNode usage = response.path("usage");
+		long promptTokens = usage.path("prompt_tokens").asLong();
+		long cached = usage.path("prompt_tokens_details").path("cached_tokens").asLong();
+		return new Sample(promptTokens, promptTokens - cached, cached, -1, latency);
+	}
+
+	private static JsonNode post(HttpClient client, String url, String body, String apiKey) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+			.header("Content-Type", "application/json")
+			.timeout(Duration.ofMinutes(5))
+			.POST(HttpRequest.BodyPublishers.ofString(body));
+		if (apiKey != null) {
+			request.header("Authorization", "Bearer " + apiKey);
+		}
+		HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException(url + " answered " + response.statusCode() + ": " + response.body());
+		}
+		return MAPPER.readTree(response.body());
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ScalarVectorKernels against SimdVectorKernels, over the embedding sizes of the
+ * supported models. Each call scores the query against the next of 256 stored vectors,
+ * so the loads are not always from the same cache lines.
+ *
+ * mvn -P openai,jmh test-compile exec:exec -Djmh.args="VectorKernelsBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorKernelsBenchmark {
+
+	@Param({ "768", "1536", "3072" })
+	public int dimensions;
+
+	@Param({ "scalar", "simd" })
+	public String kernels;
+
+	private VectorKernels vectorKernels;
+
+	private float[] query;
+
+	private float[][] vectors;
+
+	private byte[][] quantized;
+
+	private int next;
+
+	@Setup
+	public void setup() {
+		vectorKernels = "simd".equals(kernels) ? SimdVectorKernels.create() : new ScalarVectorKernels();
+		Random random = new Random(42);
+		query = BenchmarkData.vector(dimensions, random);
+		vectors = new float[256][];
+		quantized = new byte[256][dimensions];
+		for (int i = 0; i < vectors.length; i++) {
+			vectors[i] = BenchmarkData.vector(dimensions, random);
+			random.nextBytes(quantized[i]);
+		}
+	}
+
+	@Benchmark
+	public float dot() {
+		return vectorKernels.dot(query, vectors[next++ & 255]);
+	}
+
+	@Benchmark
+	public float cosine() {
+		return vectorKernels.cosine(query, vectors[next++ & 255]);
+	}
+
+	@Benchmark
+	public float squaredEuclidean() {
+		return vectorKernels.squaredEuclidean(query, vectors[next++ & 255]);
+	}
+
+	@Benchmark
+	public float dotInt8() {
+		return vectorKernels.dot(query, quantized[next++ & 255]);
+	}
+
+	@Benchmark
+	public float squaredEuclideanInt8() {
+		return vectorKernels.squaredEuclidean(query, quantized[next++ & 255], 0.01f);
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Search latency of the local HnswIndex and FlatIndex, for each arena encoding, against
+ * an exact brute-force scan of the same vectors. The vectors are clustered around
+ * random centroids, closer to real embeddings than uniform noise; recall@topK of each
+ * combination is printed during setup. Run with -prof gc to check that the searches
+ * allocate little beyond their result list.
+ *
+ * mvn -P openai,jmh test-compile exec:exec -Djmh.args="VectorSearchBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorSearchBenchmark {
+
+	@Param({ "10000" })
+	public int size;
+
+	@Param({ "1024" })
+	public int dimensions;
+
+	@Param({ "hnsw", "flat" })
+	public String index;
+
+	@Param({ "FLOAT32", "FLOAT16", "INT8" })
+	public String encoding;
+
+	@Param({ "64" })
+	public int efSearch;
+
+	@Param({ "4" })
+	public int rescoreFactor;
+
+	@Param({ "4" })
+	public int topK;
+
+	private VectorIndex vectorIndex;
+
+	private float[][] queries;
+
+	private int next;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		float[][] vectors = clustered(size, dimensions, random);
+		VectorArena arena = new VectorArena(dimensions, VectorArena.Encoding.of(encoding));
+		vectorIndex = "flat".equals(index) ? new FlatIndex(VectorDistance.COSINE, arena, rescoreFactor)
+				: new HnswIndex(VectorDistance.COSINE, arena, 16, 100, efSearch);
+		long start = System.nanoTime();
+		for (float[] vector : vectors) {
+			vectorIndex.add(vector);
+		}
+		System.out.printf("%nBuilt %d vectors in %.1f s, %d MB off-heap%n", size, (System.nanoTime() - start) / 1e9,
+				arena.bytes() / (1024 * 1024));
+
+		queries = clustered(256, dimensions, new Random(7));
+		int found = 0;
+		for (float[] query : queries) {
+			Set<Integer> expected = new HashSet<>();
+			vectorIndex.exactSearch(query, topK).forEach(n -> expected.add(n.node()));
+			found += (int) vectorIndex.search(query, topK).stream().filter(n -> expected.contains(n.node())).count();
+		}
+		System.out.printf("recall@%d of %s %s: %.3f%n", topK, index, encoding, (double) found / (queries.length * topK));
+	}
+
+	@Benchmark
+	public List<VectorIndex.Neighbor> search() {
+		return vectorIndex.search(queries[next++ & 255], topK);
+	}
+
+	@Benchmark
+	public List<VectorIndex.Neighbor> exact() {
+		return vectorIndex.exactSearch(queries[next++ & 255], topK);
+	}
+
+	/**
+	 * Vectors around 100 centroids; the same seed gives the same centroids.
+	 */
+	static float[][] clustered(int count, int dimensions, Random random) {
+		Random centroidRandom = new Random(1);
+		float[][] centroids = new float[100][];
+		for (int i = 0; i < centroids.length; i++) {
+			centroids[i] = BenchmarkData.vector(dimensions, centroidRandom);
+		}
+		float[][] vectors = new float[count][];
+		for (int i = 0; i < count; i++) {
+			float[] centroid = centroids[random.nextInt(centroids.length)];
+			float[] noise = BenchmarkData.vector(dimensions, random);
+			float[] vector = new float[dimensions];
+			for (int d = 0; d < dimensions; d++) {
+				vector[d] = centroid[d] + 0.7f * noise[d];
+			}
+			vectors[i] = vector;
+		}
+		return vectors;
+	}
+
+}
@@ -6,245 +6,328 @@ Licensed under the Universal Permissive License v1.0 as shown at http://oss.orac
 package org.springframework.ai.openai.samples.helloworld;
 
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.reader.ExtractedTextFormatter;
 import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
 import org.springframework.ai.reader.pdf.config.PdfDocumentReaderConfig;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.ai.vectorstore.oracle.OracleVectorStore;
 
-import jakarta.annotation.PostConstruct;
-
 import org.springframework.core.io.Resource;
-import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
-import java.util.ArrayList;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import java.util.Iterator;
+import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
 @RestController
+@Profile("!reactive")
 class AIController {
 
 	@Autowired
-	private final OracleVectorStore vectorStore;
-
-	@Autowired
-	private final EmbeddingModel embeddingModel;
+	private final RagPipeline rag;
 
 	@Autowired
 	private final ChatClient chatClient;
 
-	@Value("${aims.vectortable.name}")
-	private String legacyTable;
-
-	@Value("${aims.context_instr}")
-	private String contextInstr;
-
 	@Value("${aims.rag_params.search_type}")
 	private String searchType;
 
-	@Value("${aims.rag_params.top_k}")
-	private int TOPK;
-
-	@Autowired
-	private JdbcTemplate jdbcTemplate;
+	@Value("${aims.stream.timeout:5m}")
+	private Duration streamTimeout;
 
 	private static final Logger logger = LoggerFactory.getLogger(AIController.class);
 
-	AIController(ChatClient chatClient, EmbeddingModel embeddingModel, OracleVectorStore vectorStore) {
+	private final RagMetrics metrics;
+
+	private final CompletionCoalescer coalescer;
+
+	private final AdaptiveConcurrencyLimiter llmLimiter;
+
+	private final AdaptiveConcurrencyLimiter completionsLimiter;
+
+	private final AdaptiveConcurrencyLimiter batchLimiter;
+
+	private final StageExecutor stages;
+
+	private final BatchCompletionService batch;
+
+	// SseEmitter.send blocks on the client: one virtual thread per stream, never the thread delivering tokens
+	private final Scheduler sender = Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(),
+			"sse-sender");
+
+	AIController(ChatClient chatClient, RagPipeline rag, RagMetrics metrics, CompletionCoalescer coalescer,
+			@Qualifier("llmLimiter") AdaptiveConcurrencyLimiter llmLimiter,
+			@Qualifier("completionsLimiter") AdaptiveConcurrencyLimiter completionsLimiter,
+			@Qualifier("batchLimiter") AdaptiveConcurrencyLimiter batchLimiter, StageExecutor stages,
+			BatchCompletionService batch) {
 
 		this.chatClient = chatClient;
-		this.embeddingModel = embeddingModel;
-		this.vectorStore = vectorStore;
+		this.rag = rag;
+		this.metrics = metrics;
+		this.coalescer = coalescer;
+		this.llmLimiter = llmLimiter;
+		this.completionsLimiter = completionsLimiter;
+		this.batchLimiter = batchLimiter;
+		this.stages = stages;
+		this.batch = batch;
 
 	}
 
+	@PreDestroy
+	void close() {
+		sender.dispose();
+	}
+
 	@GetMapping("/service/llm")
 	Map<String, String> completion(@RequestParam(value = "message", defaultValue = "Tell me a joke") String message) {
 
 		return Map.of(
 				"completion",
-				chatClient.prompt()
+				metrics.time("llm_direct", () -> llmLimiter.execute(() -> chatClient.prompt()
 						.user(message)
 						.call()
-						.content());
+						.content())));
 	}
 
-	@PostConstruct
-	public void insertData() {
-		String sqlUser = "SELECT USER FROM DUAL";
-		String user = "";
-		String sql = "";
-		String newTable = legacyTable+"_SPRINGAI";
-
-		user = jdbcTemplate.queryForObject(sqlUser, String.class);
-		if (doesTableExist(legacyTable,user)!=-1) {
-			// RUNNING LOCAL
-			logger.info("Running local with user: " + user);
-			sql = "INSERT INTO " + user + "." + newTable + " (ID, CONTENT, METADATA, EMBEDDING) " +
-					"SELECT ID, TEXT, METADATA, EMBEDDING FROM " + user + "." + legacyTable;
-		} else {
-			// RUNNING in OBAAS
-			logger.info("Running on OBaaS with user: " + user);
-			sql = "INSERT INTO " + user + "." + newTable+ " (ID, CONTENT, METADATA, EMBEDDING) " +
-					"SELECT ID, TEXT, METADATA, EMBEDDING FROM ADMIN." + legacyTable;
-		}
-		// Execute the insert
-		logger.info("doesExist"+  user + ": "+ doesTableExist(newTable,user));
-		if (countRecordsInTable(newTable,user)==0) {
-			// First microservice execution
-			logger.info("Table " + user + "." + newTable+ " doesn't exist: create from ADMIN/USER." + legacyTable);
-			jdbcTemplate.update(sql);
-		} else {
-			// Table conversion already done
-			logger.info("Table +"+ newTable+" exists: drop before if you want use with new contents " + legacyTable);
-		}
-	}
+	@PostMapping("/chat/completions")
+	Object completionRag(@RequestBody Map<String, Object> requestBody) {
 
-	public int countRecordsInTable(String tableName, String schemaName) {
-		// Dynamically construct the SQL query with the table and schema names
-		String sql = String.format("SELECT COUNT(*) FROM %s.%s", schemaName.toUpperCase(), tableName.toUpperCase());
-		logger.info("Checking if table is empty: " + tableName + " in schema: " + schemaName);
-		
+		String message = String.valueOf(requestBody.getOrDefault("message", "Tell me a joke"));
+		boolean stream = Boolean.parseBoolean(String.valueOf(requestBody.getOrDefault("stream", "false")));
+		RequestDeadline deadline = stages.start();
+
+		// Identical questions in flight share one pipeline execution
+		if (stream) {
+			return completionRagStream(coalescer.stream(message, () -> tokens(message, deadline)));
+		}
 		try {
-			// Execute the query and get the count of records in the table
-			Integer count = jdbcTemplate.queryForObject(sql, Integer.class);
-			
-			// Return the count if it's not null, otherwise return -1
-			return count != null ? count : -1;
+			return RagPipeline.choices(coalescer.call(message, () -> answer(message, null, deadline, completionsLimiter)));
+
+		} catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+			throw e;
 		} catch (Exception e) {
-			logger.error("Error checking table record count: " + e.getMessage());
-			return -1; // Return -1 in case of an error
+			logger.error("Error while fetching completion", e);
+			return Map.of("error", "Failed to fetch completion");
 		}
 	}
 
-	public int doesTableExist(String tableName, String schemaName) {
-		String sql = "SELECT COUNT(*) FROM all_tables WHERE table_name = ? AND owner = ?";
-		logger.info("Checking if table exists: " + tableName + " in schema: " + schemaName);
+	/**
+	 * Answers a JSON array ({"messages": [...]}) or an NDJSON upload of questions,
+	 * streaming one NDJSON line per answer as it completes, then a stats line.
+	 */
+	@PostMapping(value = "/chat/completions/batch",
+			consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+	ResponseEntity<?> completionRagBatch(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+			@RequestBody String body) {
 
+		List<BatchCompletionService.BatchItem> items;
 		try {
-			// Query the system catalog to check for the existence of the table in the given
-			// schema
-			Integer count = jdbcTemplate.queryForObject(sql, Integer.class, tableName.toUpperCase(),
-					schemaName.toUpperCase());
-			
-			if (count != null && count > 0) { return count;}
-			else {return -1;}
-		} catch (Exception e) {
-			logger.error("Error checking table existence: " + e.getMessage());
-			return -1;
+			items = batch.parse(body, MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType)));
+		} catch (JsonProcessingException | IllegalArgumentException e) {
+			return ResponseEntity.badRequest()
+					.body(Map.of("error", Map.of("message", e.getMessage(), "type", "invalid_request_error")));
 		}
+		logger.info("Batch of " + items.size() + " questions accepted");
+		// Each question gets its own deadline when it starts, not when the batch was accepted,
+		// and its generation goes through the batch limiter, not the interactive one
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(batch.submit(items, (message, embedding) -> coalescer.call(message,
+						() -> answer(message, embedding, stages.start(), batchLimiter))));
 	}
 
-	public Prompt promptEngineering(String message, String contextInstr) {
-
-		String template = """
-				DOCUMENTS:
-				{documents}
-
-				QUESTION:
-				{question}
-
-				INSTRUCTIONS:""";
-
-		String default_Instr = """
-					Answer the users question using the DOCUMENTS text above.
-				Keep your answer ground in the facts of the DOCUMENTS.
-				If the DOCUMENTS doesn’t contain the facts to answer the QUESTION, return:
-				I'm sorry but I haven't enough information to answer.
-				""";
-		
-		//This template doesn't work with agent pattern, but only via RAG 
-		//The contextInstr coming from AI Explorer can't be used here: default only
-		template = template + "\n" + default_Instr;
-
-		List<Document> similarDocuments = this.vectorStore.similaritySearch(
-				SearchRequest.builder().query(message).topK(TOPK).build());
-
-		StringBuilder context = createContext(similarDocuments);
+	/**
+	 * The blocking pipeline; the embedding is computed here unless the caller already has it.
+	 */
+	private String answer(String message, float[] known, RequestDeadline deadline, AdaptiveConcurrencyLimiter limiter) {
 
-		PromptTemplate promptTemplate = new PromptTemplate(template);
+		float[] embedding = known != null ? known : rag.embed(message, deadline);
+		List<Document> similarDocuments = rag.retrieve(message, embedding, deadline);
+		Optional<String> cached = rag.cachedAnswer(embedding, similarDocuments);
+		if (cached.isPresent()) {
+			return cached.get();
+		}
 
-		Prompt prompt = promptTemplate.create(Map.of("documents", context, "question", message));
+		Prompt prompt = rag.promptEngineering(message, similarDocuments);
+		logger.info(prompt.getContents());
+		Optional<String> completion = rag.cachedCompletion(prompt);
+		if (completion.isPresent()) {
+			rag.cacheAnswer(message, embedding, similarDocuments, completion.get());
+			return completion.get();
+		}
+		ChatResponse response = metrics.time("llm", () -> stages.run("generation", deadline, false,
+				() -> limiter.execute(() -> chatClient.prompt(prompt).call().chatResponse())));
+		String content = response.getResult().getOutput().getText();
+		Usage usage = response.getMetadata().getUsage();
+		if (usage != null) {
+			metrics.recordTokens(usage.getPromptTokens(), usage.getTotalTokens());
+		}
+		rag.cacheCompletion(prompt, content);
+		rag.cacheAnswer(message, embedding, similarDocuments, content);
+		return content;
+	}
 
-		logger.info(prompt.toString());
+	private Flux<String> tokens(String message, RequestDeadline deadline) {
 
-		return prompt;
+		float[] embedding = rag.embed(message, deadline);
+		List<Document> similarDocuments = rag.retrieve(message, embedding, deadline);
+		Optional<String> cached = rag.cachedAnswer(embedding, similarDocuments);
+		if (cached.isPresent()) {
+			return Flux.just(cached.get());
+		}
 
+		Prompt prompt = rag.promptEngineering(message, similarDocuments);
+		logger.info(prompt.getContents());
+		Optional<String> completion = rag.cachedCompletion(prompt);
+		if (completion.isPresent()) {
+			return Flux.just(completion.get());
+		}
+		// The slot is taken now, so that a rejection is still answered with 429 or 503 rather
+		// than an error event, and held until the subscription ends, however it ends
+		return completionsLimiter.acquireStream(Schedulers.immediate(), permit -> {
+			StringBuilder answer = new StringBuilder();
+			long llmStart = System.nanoTime();
+			AtomicBoolean first = new AtomicBoolean(true);
+			return stages.within("generation", deadline, chatClient.prompt(prompt).stream().content())
+					.doOnNext(token -> {
+						if (first.compareAndSet(true, false)) {
+							metrics.record("llm_first_token", System.nanoTime() - llmStart);
+							permit.firstToken();
+						}
+						answer.append(token);
+					})
+					.doOnComplete(() -> {
+						metrics.record("llm", System.nanoTime() - llmStart);
+						rag.cacheCompletion(prompt, answer.toString());
+						rag.cacheAnswer(message, embedding, similarDocuments, answer.toString());
+					});
+		});
 	}
 
-	StringBuilder createContext(List<Document> similarDocuments) {
-		String START = "\n<article>\n";
-		String STOP = "\n</article>\n";
-
-		Iterator<Document> iterator = similarDocuments.iterator();
-		StringBuilder context = new StringBuilder();
-		while (iterator.hasNext()) {
-			Document document = iterator.next();
-			context.append(document.getId() + ".");
-			context.append(START + document.getFormattedContent() + STOP);
-		}
-		return context;
+	SseEmitter completionRagStream(Flux<String> tokens) {
+		// OpenAI-compatible "chat.completion.chunk" events, terminated by "data: [DONE]"
+		SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+		String id = "chatcmpl-" + UUID.randomUUID();
+		long start = System.nanoTime();
+
+		BaseSubscriber<String> subscriber = new BaseSubscriber<>() {
+			private boolean first = true;
+
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+				request(1);
+			}
+
+			@Override
+			protected void hookOnNext(String token) {
+				if (first) {
+					first = false;
+					logger.info("Time to first token: " + (System.nanoTime() - start) / 1_000_000 + " ms");
+				}
+				try {
+					// Blocks until the chunk is written, then asks upstream for the next one
+					emitter.send(RagPipeline.chunk(id, Map.of("content", token), null));
+					request(1);
+				} catch (IOException | IllegalStateException e) {
+					logger.info("Client disconnected, cancelling completion " + id);
+					cancel();
+				}
+			}
+
+			@Override
+			protected void hookOnComplete() {
+				try {
+					emitter.send(RagPipeline.chunk(id, Map.of(), "stop"));
+					emitter.send("[DONE]");
+					emitter.complete();
+				} catch (IOException | IllegalStateException e) {
+					logger.info("Client disconnected before end of completion " + id);
+				}
+				logger.info("Completion " + id + " streamed in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+			}
+
+			@Override
+			protected void hookOnError(Throwable t) {
+				logger.error("Error while streaming completion", t);
+				try {
+					emitter.send(t instanceof DeadlineExceededException exceeded ? exceeded.toErrorBody()
+							: Map.of("error", "Failed to fetch completion"));
+					emitter.complete();
+				} catch (IOException | IllegalStateException e) {
+					emitter.completeWithError(t);
+				}
+			}
+		};
+
+		// Client gone or request timed out: stop consuming the (possibly shared) token stream
+		emitter.onCompletion(subscriber::dispose);
+		emitter.onTimeout(subscriber::dispose);
+		emitter.onError(e -> subscriber.dispose());
+
+		// Tokens arrive on the WebClient event loop, shared with other streams: write them from elsewhere
+		tokens.publishOn(sender).subscribe(subscriber);
+		return emitter;
 	}
 
-	@PostMapping("/chat/completions")
-	Map<String, Object> completionRag(@RequestBody Map<String, String> requestBody) {
+	@ExceptionHandler(ConcurrencyLimitExceededException.class)
+	ResponseEntity<Map<String, Object>> limitExceeded(ConcurrencyLimitExceededException e) {
 
-		String message = requestBody.getOrDefault("message", "Tell me a joke");
-		Prompt prompt = promptEngineering(message, contextInstr);
-		logger.info(prompt.getContents());
-		try {
-			String content = chatClient.prompt(prompt).call().content();
-			Map<String, Object> messageMap = Map.of("content", content);
-			Map<String, Object> choicesMap = Map.of("message", messageMap);
-			List<Map<String, Object>> choicesList = List.of(choicesMap);
+		logger.warn("Request shed by " + e.getLimiter() + " limiter: " + e.getMessage());
+		return ResponseEntity.status(e.getStatus())
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+				.body(e.toErrorBody());
+	}
 
-			return Map.of("choices", choicesList);
+	@ExceptionHandler(DeadlineExceededException.class)
+	ResponseEntity<Map<String, Object>> deadlineExceeded(DeadlineExceededException e) {
 
-		} catch (Exception e) {
-			logger.error("Error while fetching completion", e);
-			return Map.of("error", "Failed to fetch completion");
-		}
+		return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(e.toErrorBody());
 	}
 
 	@GetMapping("/service/search")
 	List<Map<String, Object>> search(@RequestParam(value = "message", defaultValue = "Tell me a joke") String query,
 			@RequestParam(value = "topk", defaultValue = "5") Integer topK) {
 
-		List<Document> similarDocs = vectorStore.similaritySearch(SearchRequest.builder()
-			.query(query)
-			.topK(topK)
-			.build());
-
-		List<Map<String, Object>> resultList = new ArrayList<>();
-		for (Document d : similarDocs) {
-			Map<String, Object> metadata = d.getMetadata();
-			Map doc = new HashMap<>();
-			doc.put("id", d.getId());
-			resultList.add(doc);
-		}
-		;
-		return resultList;
+		float[] embedding = rag.embed(query);
+		List<Document> similarDocs = rag.search(query, embedding, topK);
+
+		return RagPipeline.searchResults(similarDocs);
 	}
 }
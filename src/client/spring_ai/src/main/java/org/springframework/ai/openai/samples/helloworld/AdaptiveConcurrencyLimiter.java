@@ -0,0 +1,347 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * AIMD concurrency limit in front of the LLM. The limit grows by one per window of
+ * successful calls, and shrinks by 10% on a failure or on a slow call, between min_limit
+ * and max_limit. A streamed call is slow when its time to first token exceeds tolerance x
+ * its long-term average: it grows with the queue of the LLM server, not with the length of
+ * the answer. Blocking calls have no first token, so their whole latency is compared to
+ * the average of the blocking calls instead.
+ * Callers over the limit wait in a bounded queue for at most max_wait; a full queue is
+ * rejected with 429, a wait that times out with 503, both with a Retry-After estimate.
+ *
+ * Configured per endpoint under aims.limiter.&lt;name&gt;.*, published as aims.limiter.*{name}.
+ */
+class AdaptiveConcurrencyLimiter {
+
+	private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+	private static final double BACKOFF = 0.9;
+
+	private static final double LATENCY_SMOOTHING = 0.05;
+
+	// Below this, a latency over the average is scheduling noise, not a queue
+	private static final long MIN_SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/**
+	 * A slot taken from the limiter, released exactly once when the call ends.
+	 */
+	final class Permit {
+
+		private final long start = System.nanoTime();
+
+		// -1 until a stream marks its first token, and for blocking calls
+		private long firstToken = -1;
+
+		private boolean released;
+
+		/**
+		 * Marks the first token of a streamed call.
+		 */
+		void firstToken() {
+			lock.lock();
+			try {
+				if (firstToken < 0) {
+					firstToken = System.nanoTime() - start;
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void release(boolean success) {
+			release(success, true);
+		}
+
+		/**
+		 * Releases at the end of a token stream. A cancelled stream gives no latency sample:
+		 * it says nothing about the backend.
+		 */
+		void release(SignalType signal) {
+			release(signal == SignalType.ON_COMPLETE, signal != SignalType.CANCEL);
+		}
+
+		private void release(boolean success, boolean sample) {
+			lock.lock();
+			try {
+				if (released) {
+					return;
+				}
+				released = true;
+				inFlight--;
+				if (sample) {
+					adjust(firstToken, System.nanoTime() - start, success);
+				}
+				available.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+	}
+
+	private final String name;
+
+	private final boolean enabled;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final int maxQueue;
+
+	private final Duration maxWait;
+
+	private final double tolerance;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition available = lock.newCondition();
+
+	private final Counter accepted;
+
+	private final Counter rejectedQueueFull;
+
+	private final Counter rejectedTimeout;
+
+	private double limit;
+
+	private int inFlight;
+
+	private int queued;
+
+	private double averageFirstTokenNanos;
+
+	private double averageLatencyNanos;
+
+	private double averageBlockingNanos;
+
+	AdaptiveConcurrencyLimiter(String name, boolean enabled, int initialLimit, int minLimit, int maxLimit,
+			int maxQueue, Duration maxWait, double tolerance, MeterRegistry registry) {
+		this.name = name;
+		this.enabled = enabled;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.maxQueue = maxQueue;
+		this.maxWait = maxWait;
+		this.tolerance = tolerance;
+		this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+		Gauge.builder("aims.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+				.description("Current adaptive concurrency limit")
+				.tag("name", name)
+				.register(registry);
+		Gauge.builder("aims.limiter.in_flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+				.tag("name", name)
+				.register(registry);
+		Gauge.builder("aims.limiter.queued", this, AdaptiveConcurrencyLimiter::getQueued)
+				.tag("name", name)
+				.register(registry);
+		Gauge.builder("aims.limiter.latency.average", this, l -> l.averageLatencyNanos / 1_000_000)
+				.baseUnit("milliseconds")
+				.tag("name", name)
+				.register(registry);
+		Gauge.builder("aims.limiter.first_token.average", this, l -> l.averageFirstTokenNanos / 1_000_000)
+				.baseUnit("milliseconds")
+				.tag("name", name)
+				.register(registry);
+		Gauge.builder("aims.limiter.blocking.average", this, l -> l.averageBlockingNanos / 1_000_000)
+				.baseUnit("milliseconds")
+				.tag("name", name)
+				.register(registry);
+		this.accepted = counter(registry, "accepted");
+		this.rejectedQueueFull = counter(registry, "rejected_queue_full");
+		this.rejectedTimeout = counter(registry, "rejected_timeout");
+	}
+
+	static AdaptiveConcurrencyLimiter fromEnvironment(String name, Environment env, MeterRegistry registry) {
+		String prefix = "aims.limiter." + name + ".";
+		return new AdaptiveConcurrencyLimiter(name,
+				env.getProperty(prefix + "enabled", Boolean.class, false),
+				env.getProperty(prefix + "initial_limit", Integer.class, 4),
+				env.getProperty(prefix + "min_limit", Integer.class, 1),
+				env.getProperty(prefix + "max_limit", Integer.class, 16),
+				env.getProperty(prefix + "max_queue", Integer.class, 50),
+				env.getProperty(prefix + "max_wait", Duration.class, Duration.ofSeconds(30)),
+				env.getProperty(prefix + "tolerance", Double.class, 2.0),
+				registry);
+	}
+
+	<T> T execute(Supplier<T> call) {
+		Permit permit = acquire();
+		boolean success = false;
+		try {
+			T result = call.get();
+			success = true;
+			return result;
+		} finally {
+			permit.release(success);
+		}
+	}
+
+	/**
+	 * Holds a permit for as long as a subscription to the stream lasts. It is taken on
+	 * subscribe, on the given scheduler since waiting for a slot blocks, and released however
+	 * the subscription ends: also when it is cancelled before the stream even started.
+	 */
+	<T> Flux<T> stream(Scheduler scheduler, Function<Permit, Flux<T>> stream) {
+		return holding(Mono.fromCallable(this::acquire).subscribeOn(scheduler), stream);
+	}
+
+	/**
+	 * Like {@link #stream}, but the permit of the first subscription is taken now, on the
+	 * calling thread, so that a rejection is thrown before the caller has answered: a
+	 * server-sent event stream can then still be refused with 429 or 503 and Retry-After
+	 * instead of an error event after a 200. The caller must subscribe, or the permit is
+	 * never released. A later resubscription takes a permit of its own, on the scheduler.
+	 */
+	<T> Flux<T> acquireStream(Scheduler scheduler, Function<Permit, Flux<T>> stream) {
+		AtomicReference<Permit> acquired = new AtomicReference<>(acquire());
+		return holding(Mono.fromCallable(() -> {
+			Permit permit = acquired.getAndSet(null);
+			return permit != null ? permit : acquire();
+		}).subscribeOn(scheduler), stream);
+	}
+
+	private <T> Flux<T> holding(Mono<Permit> acquire, Function<Permit, Flux<T>> stream) {
+		return Flux.usingWhen(
+				acquire.doOnDiscard(Permit.class, permit -> permit.release(SignalType.CANCEL)),
+				stream,
+				permit -> Mono.fromRunnable(() -> permit.release(SignalType.ON_COMPLETE)),
+				(permit, error) -> Mono.fromRunnable(() -> permit.release(SignalType.ON_ERROR)),
+				permit -> Mono.fromRunnable(() -> permit.release(SignalType.CANCEL)));
+	}
+
+	/**
+	 * Waits for a slot; the caller must release the permit when the call ends.
+	 */
+	Permit acquire() {
+		lock.lock();
+		try {
+			if (enabled && inFlight >= (int) limit) {
+				if (queued >= maxQueue) {
+					rejectedQueueFull.increment();
+					throw new ConcurrencyLimitExceededException(name, HttpStatus.TOO_MANY_REQUESTS, retryAfter(),
+							"Too many concurrent requests, retry later");
+				}
+				awaitSlot();
+			}
+			inFlight++;
+			accepted.increment();
+			return new Permit();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void awaitSlot() {
+		queued++;
+		try {
+			long nanos = maxWait.toNanos();
+			while (inFlight >= (int) limit) {
+				if (nanos <= 0) {
+					rejectedTimeout.increment();
+					throw new ConcurrencyLimitExceededException(name, HttpStatus.SERVICE_UNAVAILABLE, retryAfter(),
+							"The model is overloaded, retry later");
+				}
+				nanos = available.awaitNanos(nanos);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConcurrencyLimitExceededException(name, HttpStatus.SERVICE_UNAVAILABLE, retryAfter(),
+					"Interrupted while waiting for the model");
+		} finally {
+			queued--;
+		}
+	}
+
+	private void adjust(long firstTokenNanos, long latencyNanos, boolean success) {
+		double previous = limit;
+		boolean slow = firstTokenNanos >= 0 ? isSlow(firstTokenNanos, averageFirstTokenNanos)
+				: isSlow(latencyNanos, averageBlockingNanos);
+		if (!success || slow) {
+			limit = Math.max(minLimit, limit * BACKOFF);
+		} else {
+			// Additive increase: about +1 once a full window of calls succeeded
+			limit = Math.min(maxLimit, limit + 1.0 / limit);
+		}
+		if (success && firstTokenNanos >= 0) {
+			averageFirstTokenNanos = smooth(averageFirstTokenNanos, firstTokenNanos);
+		} else if (success) {
+			averageBlockingNanos = smooth(averageBlockingNanos, latencyNanos);
+		}
+		if (success) {
+			// Only for the Retry-After estimate
+			averageLatencyNanos = smooth(averageLatencyNanos, latencyNanos);
+		}
+		if ((int) previous != (int) limit) {
+			logger.info("Concurrency limit " + name + ": " + (int) previous + " -> " + (int) limit);
+		}
+		// The limit may have grown: wake as many waiters as there are free slots
+		for (int free = (int) limit - inFlight; free > 1; free--) {
+			available.signal();
+		}
+	}
+
+	private boolean isSlow(long sample, double average) {
+		return average > 0 && sample > MIN_SLOW_NANOS && sample > average * tolerance;
+	}
+
+	private static double smooth(double average, long sample) {
+		return average == 0 ? sample : average + LATENCY_SMOOTHING * (sample - average);
+	}
+
+	/**
+	 * Seconds until a slot is likely to free up: one average call, at least one second.
+	 */
+	private long retryAfter() {
+		return Math.max(1, TimeUnit.NANOSECONDS.toSeconds((long) averageLatencyNanos));
+	}
+
+	private Counter counter(MeterRegistry registry, String result) {
+		return Counter.builder("aims.limiter.requests")
+				.tag("name", name)
+				.tag("result", result)
+				.register(registry);
+	}
+
+	double getLimit() {
+		return limit;
+	}
+
+	int getInFlight() {
+		return inFlight;
+	}
+
+	int getQueued() {
+		return queued;
+	}
+
+}
@@ -13,8 +13,10 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Application {
 
     @Value("${aims.vectortable.name}")
@@ -25,8 +27,20 @@ public class Application {
     }
 
     @Bean
-    OracleVectorStore vectorStore(EmbeddingModel ec, JdbcTemplate t) {
-        OracleVectorStore ovs = OracleVectorStore.builder(t,ec)
+    OracleVectorStore vectorStore(EmbeddingModel ec, JdbcTemplate t, QueryEmbeddingCache cache,
+            VectorTableMigration migration) {
+        if (migration.isInPlace()) {
+            // Map the AI Explorer columns to the ones OracleVectorStore expects, without copying rows
+            String source = migration.resolveSourceTable();
+            String view = legacyTable + "_SPRINGAI_VIEW";
+            t.execute("CREATE OR REPLACE VIEW " + view + " AS " +
+                    "SELECT ID, TEXT AS CONTENT, METADATA, EMBEDDING FROM " + source);
+            return OracleVectorStore.builder(t,new CachingEmbeddingModel(ec, cache))
+                .tableName(view)
+                .initializeSchema(false)
+                .build();
+        }
+        OracleVectorStore ovs = OracleVectorStore.builder(t,new CachingEmbeddingModel(ec, cache))
             .tableName(legacyTable+"_SPRINGAI")
             .initializeSchema(true)
             .build();
@@ -0,0 +1,286 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs /chat/completions/batch jobs: the questions are embedded aims.batch.embedding_batch_size
+ * at a time with one EmbeddingModel.embed(List) call, then up to aims.batch.parallelism
+ * questions go through the RAG pipeline at once, each with its vector. If a bulk call fails,
+ * the questions of that chunk are embedded one by one by the pipeline.
+ * Results are written as NDJSON lines in completion order, followed by a stats line.
+ */
+@Component
+class BatchCompletionService {
+
+	private static final Logger logger = LoggerFactory.getLogger(BatchCompletionService.class);
+
+	record BatchItem(int index, String id, String message) {
+	}
+
+	private final EmbeddingModel embeddingModel;
+
+	private final QueryEmbeddingCache queryEmbeddings;
+
+	private final ObjectMapper objectMapper;
+
+	private final MeterRegistry registry;
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	@Value("${aims.batch.embedding_batch_size:64}")
+	private int embeddingBatchSize;
+
+	@Value("${aims.batch.parallelism:8}")
+	private int parallelism;
+
+	@Value("${aims.batch.max_items:50000}")
+	private int maxItems;
+
+	@Value("${aims.batch.timeout:12h}")
+	private Duration timeout;
+
+	BatchCompletionService(EmbeddingModel embeddingModel, QueryEmbeddingCache queryEmbeddings,
+			ObjectMapper objectMapper, MeterRegistry registry) {
+		this.embeddingModel = embeddingModel;
+		this.queryEmbeddings = queryEmbeddings;
+		this.objectMapper = objectMapper;
+		this.registry = registry;
+	}
+
+	@PreDestroy
+	void close() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Accepts {"messages": [...]}, a JSON array, or NDJSON with one question per line.
+	 * Each question is a string or an object with "message" and an optional "id".
+	 */
+	List<BatchItem> parse(String body, boolean ndjson) throws JsonProcessingException {
+		List<JsonNode> nodes = new ArrayList<>();
+		if (ndjson) {
+			for (String line : body.split("\\R")) {
+				if (!line.isBlank()) {
+					nodes.add(objectMapper.readTree(line));
+				}
+			}
+		} else {
+			JsonNode root = objectMapper.readTree(body);
+			(root.isArray() ? root : root.path("messages")).forEach(nodes::add);
+		}
+		if (nodes.size() > maxItems) {
+			throw new IllegalArgumentException("Batch of " + nodes.size() + " questions exceeds " + maxItems);
+		}
+		List<BatchItem> items = new ArrayList<>(nodes.size());
+		for (JsonNode node : nodes) {
+			int index = items.size();
+			String message = node.isTextual() ? node.asText() : node.path("message").asText(null);
+			if (message == null) {
+				throw new IllegalArgumentException("Question " + index + " has no message");
+			}
+			items.add(new BatchItem(index, node.path("id").asText(String.valueOf(index)), message));
+		}
+		return items;
+	}
+
+	/**
+	 * Answers each item with answer(message, embedding); the embedding is null when the bulk
+	 * call for its chunk failed.
+	 */
+	ResponseBodyEmitter submit(List<BatchItem> items, BiFunction<String, float[], String> answer) {
+		return submit(items, answer, new ResponseBodyEmitter(timeout.toMillis()));
+	}
+
+	ResponseBodyEmitter submit(List<BatchItem> items, BiFunction<String, float[], String> answer,
+			ResponseBodyEmitter emitter) {
+		AtomicBoolean cancelled = new AtomicBoolean();
+		emitter.onCompletion(() -> cancelled.set(true));
+		emitter.onTimeout(() -> cancelled.set(true));
+		emitter.onError(e -> cancelled.set(true));
+		executor.submit(() -> run(items, answer, emitter, cancelled));
+		return emitter;
+	}
+
+	private void run(List<BatchItem> items, BiFunction<String, float[], String> answer, ResponseBodyEmitter emitter,
+			AtomicBoolean cancelled) {
+		long start = System.nanoTime();
+		long[] latencies = new long[items.size()];
+		AtomicInteger succeeded = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		Semaphore slots = new Semaphore(parallelism);
+		long embeddingNanos = 0;
+		int embeddingBatches = 0;
+		try {
+			for (int from = 0; from < items.size() && !cancelled.get(); from += embeddingBatchSize) {
+				List<BatchItem> batch = items.subList(from, Math.min(items.size(), from + embeddingBatchSize));
+				long embeddingStart = System.nanoTime();
+				Map<String, float[]> vectors = embed(batch);
+				embeddingNanos += System.nanoTime() - embeddingStart;
+				embeddingBatches++;
+				for (BatchItem item : batch) {
+					// Blocks while parallelism questions are in flight: the next embedding batch waits too
+					slots.acquire();
+					if (cancelled.get()) {
+						slots.release();
+						break;
+					}
+					executor.submit(() -> {
+						long itemStart = System.nanoTime();
+						try {
+							String content = answer.apply(item.message(),
+									vectors.get(QueryEmbeddingCache.normalize(item.message())));
+							latencies[item.index()] = System.nanoTime() - itemStart;
+							succeeded.incrementAndGet();
+							count("success");
+							send(emitter, cancelled, Map.of("index", item.index(), "id", item.id(),
+									"choices", RagPipeline.choices(content).get("choices")));
+						} catch (Exception e) {
+							latencies[item.index()] = System.nanoTime() - itemStart;
+							failed.incrementAndGet();
+							count("failure");
+							send(emitter, cancelled, Map.of("index", item.index(), "id", item.id(),
+									"error", errorBody(e).get("error")));
+						} finally {
+							slots.release();
+						}
+					});
+				}
+			}
+			// Wait for the questions still in flight
+			slots.acquire(parallelism);
+
+			double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+			long[] sorted = Arrays.stream(latencies).filter(l -> l > 0).sorted().toArray();
+			Map<String, Object> stats = new LinkedHashMap<>();
+			stats.put("items", items.size());
+			stats.put("succeeded", succeeded.get());
+			stats.put("failed", failed.get());
+			stats.put("cancelled", cancelled.get());
+			stats.put("elapsed_seconds", elapsed);
+			stats.put("items_per_second", (succeeded.get() + failed.get()) / elapsed);
+			stats.put("parallelism", parallelism);
+			stats.put("embedding_batches", embeddingBatches);
+			stats.put("embedding_seconds", embeddingNanos / 1_000_000_000.0);
+			stats.put("latency_p50_ms", percentile(sorted, 0.50));
+			stats.put("latency_p95_ms", percentile(sorted, 0.95));
+			stats.put("latency_p99_ms", percentile(sorted, 0.99));
+			logger.info("Batch of " + items.size() + " questions done: " + stats);
+			send(emitter, cancelled, Map.of("stats", stats));
+			emitter.complete();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			emitter.completeWithError(e);
+		} catch (Exception e) {
+			logger.error("Batch failed", e);
+			send(emitter, cancelled, errorBody(e));
+			emitter.complete();
+		}
+	}
+
+	/**
+	 * One embedding call for the questions of the chunk not in the query embedding cache,
+	 * keyed by normalized question. Empty when the call fails: the pipeline then embeds each
+	 * question on its own.
+	 */
+	private Map<String, float[]> embed(List<BatchItem> batch) {
+		Map<String, float[]> vectors = new LinkedHashMap<>();
+		List<String> missing = new ArrayList<>();
+		for (BatchItem item : batch) {
+			String message = QueryEmbeddingCache.normalize(item.message());
+			if (!vectors.containsKey(message)) {
+				float[] cached = queryEmbeddings.get(message);
+				vectors.put(message, cached);
+				if (cached == null) {
+					missing.add(message);
+				}
+			}
+		}
+		if (missing.isEmpty()) {
+			return vectors;
+		}
+		List<float[]> embedded;
+		try {
+			embedded = embeddingModel.embed(missing);
+		} catch (RuntimeException e) {
+			logger.warn("Embedding of " + missing.size() + " questions failed, embedding them one by one: "
+					+ e.getMessage());
+			count("embedding_fallback");
+			return Map.of();
+		}
+		for (int i = 0; i < missing.size(); i++) {
+			vectors.put(missing.get(i), embedded.get(i));
+			queryEmbeddings.put(missing.get(i), embedded.get(i));
+		}
+		return vectors;
+	}
+
+	private void send(ResponseBodyEmitter emitter, AtomicBoolean cancelled, Map<String, Object> line) {
+		if (cancelled.get()) {
+			return;
+		}
+		try {
+			emitter.send(objectMapper.writeValueAsString(line) + "\n");
+		} catch (IOException | IllegalStateException e) {
+			logger.info("Batch client disconnected, stopping");
+			cancelled.set(true);
+		}
+	}
+
+	/**
+	 * OpenAI-style {"error": {...}}.
+	 */
+	private static Map<String, Object> errorBody(Exception e) {
+		if (e instanceof DeadlineExceededException exceeded) {
+			return exceeded.toErrorBody();
+		}
+		if (e instanceof ConcurrencyLimitExceededException limited) {
+			return limited.toErrorBody();
+		}
+		return Map.of("error", Map.of("message", String.valueOf(e.getMessage()), "type", "server_error"));
+	}
+
+	private static long percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[(int) Math.min(sorted.length - 1, Math.floor(p * sorted.length))] / 1_000_000;
+	}
+
+	private void count(String result) {
+		Counter.builder("aims.batch.items").tag("result", result).register(registry).increment();
+	}
+
+}
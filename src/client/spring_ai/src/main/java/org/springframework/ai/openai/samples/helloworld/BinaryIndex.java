@@ -0,0 +1,47 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.List;
+
+/**
+ * Two-stage scan over a BINARY arena: the Hamming distance between the sign bits of
+ * the query and of each vector (a XOR and a popcount per 64 dimensions) keeps the
+ * k * rescoreFactor nearest candidates, which are then rescored with the float32 copy.
+ * The signs approximate the angle between vectors, so the prefilter suits COSINE and
+ * DOT over embeddings centred on zero; recall grows with rescoreFactor.
+ */
+class BinaryIndex extends FlatIndex {
+
+	BinaryIndex(VectorDistance distance, VectorArena arena, int rescoreFactor) {
+		super(distance, arena, Math.max(1, rescoreFactor));
+		if (arena.encoding() != VectorArena.Encoding.BINARY) {
+			throw new IllegalArgumentException("BinaryIndex needs a BINARY arena, not " + arena.encoding());
+		}
+	}
+
+	@Override
+	public List<Neighbor> search(float[] query, int k) {
+		VectorArena arena = arena();
+		Scratch s = Scratch.borrow();
+		try {
+			float[] prepared = distance().prepare(query, s.query(query.length));
+			long[] signs = VectorArena.signs(prepared, s.signs(VectorArena.words(prepared.length)));
+			int keep = k * rescoreFactor;
+			s.candidates.clear();
+			int nodes = arena.size();
+			for (int node = 0; node < nodes; node++) {
+				if (!isDeleted(node)) {
+					s.candidates.offer(node, arena.hamming(signs, node), keep);
+				}
+			}
+			return arena.nearest(distance(), prepared, s, k);
+		} finally {
+			s.release();
+		}
+	}
+
+}
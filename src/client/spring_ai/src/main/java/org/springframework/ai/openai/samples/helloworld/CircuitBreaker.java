@@ -0,0 +1,104 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Consecutive-failure circuit breaker. CLOSED lets every call through; failure_threshold
+ * failures in a row open it for open_for, then HALF_OPEN lets a single trial call
+ * through, which closes the breaker on success or reopens it on failure.
+ */
+class CircuitBreaker {
+
+	private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final String name;
+
+	private final int failureThreshold;
+
+	private final Duration openFor;
+
+	private State state = State.CLOSED;
+
+	private int consecutiveFailures;
+
+	private long openedAt;
+
+	private boolean trialInFlight;
+
+	CircuitBreaker(String name, int failureThreshold, Duration openFor) {
+		this.name = name;
+		this.failureThreshold = failureThreshold;
+		this.openFor = openFor;
+	}
+
+	/**
+	 * True if a call may go through now. In HALF_OPEN, only the first caller gets the trial.
+	 */
+	synchronized boolean tryAcquire() {
+		if (state == State.OPEN && System.nanoTime() - openedAt >= openFor.toNanos()) {
+			state = State.HALF_OPEN;
+			logger.info("Circuit breaker " + name + " half-open, trying one call");
+		}
+		return switch (state) {
+			case CLOSED -> true;
+			case OPEN -> false;
+			case HALF_OPEN -> {
+				if (trialInFlight) {
+					yield false;
+				}
+				trialInFlight = true;
+				yield true;
+			}
+		};
+	}
+
+	synchronized void onSuccess() {
+		consecutiveFailures = 0;
+		trialInFlight = false;
+		if (state != State.CLOSED) {
+			state = State.CLOSED;
+			logger.info("Circuit breaker " + name + " closed");
+		}
+	}
+
+	synchronized void onFailure(Throwable error) {
+		consecutiveFailures++;
+		trialInFlight = false;
+		if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+			if (state != State.OPEN) {
+				logger.warn("Circuit breaker " + name + " opened for " + openFor + " after: " + error.getMessage());
+			}
+			state = State.OPEN;
+			openedAt = System.nanoTime();
+		}
+	}
+
+	/**
+	 * The call ended without telling whether the provider is healthy, abandoned or failed
+	 * on the request itself: give the trial slot back.
+	 */
+	synchronized void onCancel() {
+		trialInFlight = false;
+	}
+
+	synchronized State getState() {
+		return state;
+	}
+
+	String getName() {
+		return name;
+	}
+
+}
@@ -0,0 +1,249 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Exact-match cache of LLM completions, keyed by the SHA-256 of (corpus version,
+ * model options, rendered prompt). Only used when the chat model is deterministic
+ * (temperature 0). Two tiers: Caffeine in the heap, and
+ * {@code <VECTOR_STORE>_SPRINGAI_COMPLETIONS} shared by all replicas.
+ * The corpus version is the sync watermark, or where there is no sync (in_place mode,
+ * sync disabled) the newest ORA_ROWSCN of the table searched: when the vector table
+ * changes the keys change, and the stale entries are dropped.
+ */
+@Component
+class CompletionCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(CompletionCache.class);
+
+	@Value("${aims.completion_cache.enabled:false}")
+	private boolean enabled;
+
+	@Value("${aims.completion_cache.max_entries:10000}")
+	private long maxEntries;
+
+	@Value("${aims.completion_cache.ttl:24h}")
+	private Duration ttl;
+
+	@Value("${aims.completion_cache.persist:false}")
+	private boolean persist;
+
+	@Value("${aims.vectortable.name}")
+	private String legacyTable;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ObjectProvider<ChatModel> chatModels;
+
+	private final VectorTableSync sync;
+
+	private final VectorTableMigration migration;
+
+	private final MeterRegistry registry;
+
+	private Cache<String, String> cache;
+
+	private String table;
+
+	private volatile long corpusVersion;
+
+	private volatile Boolean deterministic;
+
+	CompletionCache(JdbcTemplate jdbcTemplate, ObjectProvider<ChatModel> chatModels, VectorTableSync sync,
+			VectorTableMigration migration, MeterRegistry registry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.chatModels = chatModels;
+		this.sync = sync;
+		this.migration = migration;
+		this.registry = registry;
+	}
+
+	@PostConstruct
+	void init() {
+		cache = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl).build();
+		table = legacyTable + "_SPRINGAI_COMPLETIONS";
+		if (!enabled || !persist) {
+			return;
+		}
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+				+ "ID VARCHAR2(64) PRIMARY KEY, "
+				+ "CORPUS_VERSION NUMBER, "
+				+ "ANSWER CLOB, "
+				+ "CREATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP)");
+	}
+
+	/**
+	 * Cached completion of this prompt, empty on a miss or when caching doesn't apply.
+	 */
+	Optional<String> get(Prompt prompt) {
+		if (!isDeterministic()) {
+			if (enabled) {
+				count("bypass");
+			}
+			return Optional.empty();
+		}
+		String id = key(prompt);
+		String answer = cache.getIfPresent(id);
+		if (answer != null) {
+			count("hit_memory");
+			return Optional.of(answer);
+		}
+		if (persist) {
+			try {
+				List<String> answers = jdbcTemplate.queryForList("SELECT ANSWER FROM " + table
+						+ " WHERE ID = ? AND CREATED_AT > SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND')", String.class,
+						id, ttl.toSeconds());
+				if (!answers.isEmpty()) {
+					cache.put(id, answers.get(0));
+					count("hit_db");
+					return Optional.of(answers.get(0));
+				}
+			} catch (Exception e) {
+				logger.error("Error reading cached completion: " + e.getMessage());
+			}
+		}
+		count("miss");
+		return Optional.empty();
+	}
+
+	void put(Prompt prompt, String answer) {
+		if (!isDeterministic()) {
+			return;
+		}
+		String id = key(prompt);
+		cache.put(id, answer);
+		if (!persist) {
+			return;
+		}
+		try {
+			jdbcTemplate.update("MERGE INTO " + table + " t USING (SELECT ? ID FROM DUAL) s ON (t.ID = s.ID) "
+					+ "WHEN MATCHED THEN UPDATE SET t.ANSWER = ?, t.CREATED_AT = SYSTIMESTAMP "
+					+ "WHEN NOT MATCHED THEN INSERT (ID, CORPUS_VERSION, ANSWER) VALUES (s.ID, ?, ?)",
+					id, answer, corpusVersion, answer);
+		} catch (Exception e) {
+			logger.error("Error persisting cached completion: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Picks up vector table changes synced by any replica, or made to the table searched
+	 * when there is no sync.
+	 */
+	@Scheduled(fixedDelayString = "${aims.completion_cache.version_check:PT1M}")
+	void refreshCorpusVersion() {
+		if (!enabled) {
+			return;
+		}
+		long version;
+		try {
+			version = readCorpusVersion();
+		} catch (Exception e) {
+			logger.error("Error reading the corpus version: " + e.getMessage());
+			return;
+		}
+		if (version == corpusVersion) {
+			return;
+		}
+		corpusVersion = version;
+		cache.invalidateAll();
+		if (persist) {
+			try {
+				int deleted = jdbcTemplate.update("DELETE FROM " + table + " WHERE CORPUS_VERSION <> ?", version);
+				logger.info("Completion cache moved to corpus version " + version + ", " + deleted + " stale rows deleted");
+			} catch (Exception e) {
+				logger.error("Error deleting stale completions: " + e.getMessage());
+			}
+		}
+	}
+
+	@EventListener
+	void onVectorTableChanged(VectorTableChangedEvent event) {
+		refreshCorpusVersion();
+	}
+
+	/**
+	 * The sync watermark, a single row, where the sync runs. Otherwise a scan for the
+	 * newest ORA_ROWSCN of the AI Explorer table (in_place) or of the copy: without
+	 * ROWDEPENDENCIES it is the SCN of the block, so deletes move it too.
+	 * 0 until the migration has resolved the tables.
+	 */
+	private long readCorpusVersion() {
+		if (sync.isActive()) {
+			return sync.watermark();
+		}
+		String searched = migration.isInPlace() ? migration.getSourceTable() : migration.getTargetTable();
+		if (searched == null) {
+			return 0;
+		}
+		Long scn = jdbcTemplate.queryForObject("SELECT NVL(MAX(ORA_ROWSCN), 0) FROM " + searched, Long.class);
+		return scn == null ? 0 : scn;
+	}
+
+	/**
+	 * Temperature 0 on a single provider; with failover the answering model varies.
+	 */
+	boolean isDeterministic() {
+		if (!enabled) {
+			return false;
+		}
+		if (deterministic == null) {
+			ChatModel chatModel = chatModels.getIfUnique();
+			ChatOptions options = chatModel == null ? null : chatModel.getDefaultOptions();
+			deterministic = !(chatModel instanceof FailoverChatModel) && options != null
+					&& options.getTemperature() != null && options.getTemperature() == 0.0;
+			logger.info("Completion cache " + (deterministic ? "active" : "bypassed: temperature is not 0"));
+		}
+		return deterministic;
+	}
+
+	private String key(Prompt prompt) {
+		ChatModel chatModel = chatModels.getIfUnique();
+		String options = RagPipeline.describe(chatModel == null ? null : chatModel.getDefaultOptions());
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update((corpusVersion + "\n" + options + "\n").getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest.digest(prompt.getContents().getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void count(String result) {
+		Counter.builder("aims.completion_cache.requests")
+				.tag("result", result)
+				.register(registry)
+				.increment();
+	}
+
+}
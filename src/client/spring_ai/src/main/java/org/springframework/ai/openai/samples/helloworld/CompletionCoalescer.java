@@ -0,0 +1,168 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Single-flight for /chat/completions: concurrent requests for the same question,
+ * keyed on (normalized message, top_k, vector table, model options), share one
+ * embedding, vector search and LLM call. Entries live only while the call is in
+ * flight; answered questions are left to the semantic answer cache.
+ */
+@Component
+class CompletionCoalescer {
+
+	private static final Logger logger = LoggerFactory.getLogger(CompletionCoalescer.class);
+
+	record Key(String message, int topK, String table, String options) {
+	}
+
+	private final Map<Key, CompletableFuture<String>> calls = new ConcurrentHashMap<>();
+
+	private final Map<Key, CompletableFuture<Flux<String>>> streams = new ConcurrentHashMap<>();
+
+	private final ObjectProvider<ChatModel> chatModels;
+
+	private final MeterRegistry registry;
+
+	private volatile String options;
+
+	@Value("${aims.coalescing.enabled:true}")
+	private boolean enabled;
+
+	@Value("${aims.coalescing.cancel_grace:1s}")
+	private Duration cancelGrace;
+
+	@Value("${aims.rag_params.top_k}")
+	private int topK;
+
+	@Value("${aims.vectortable.name}")
+	private String table;
+
+	CompletionCoalescer(ObjectProvider<ChatModel> chatModels, MeterRegistry registry) {
+		this.chatModels = chatModels;
+		this.registry = registry;
+		Gauge.builder("aims.rag.coalescing.in_flight", this, c -> c.calls.size() + c.streams.size())
+				.description("Distinct completions currently in flight")
+				.register(registry);
+	}
+
+	/**
+	 * Runs the blocking pipeline once per key; concurrent callers wait for its answer.
+	 */
+	String call(String message, Supplier<String> pipeline) {
+		if (!enabled) {
+			return pipeline.get();
+		}
+		Key key = key(message);
+		CompletableFuture<String> mine = new CompletableFuture<>();
+		CompletableFuture<String> leader = calls.putIfAbsent(key, mine);
+		if (leader != null) {
+			count("call", "coalesced");
+			return await(leader);
+		}
+		count("call", "leader");
+		try {
+			String answer = pipeline.get();
+			mine.complete(answer);
+			return answer;
+		} catch (RuntimeException e) {
+			mine.completeExceptionally(e);
+			throw e;
+		} finally {
+			calls.remove(key, mine);
+		}
+	}
+
+	/**
+	 * Builds the token stream once per key and shares it while it has subscribers.
+	 * Late joiners get the tokens already emitted replayed, then follow the live stream.
+	 * Once the last subscriber is gone for cancel_grace, the LLM call is cancelled, which
+	 * also releases its limiter permit, and the entry is dropped.
+	 */
+	Flux<String> stream(String message, Supplier<Flux<String>> pipeline) {
+		if (!enabled) {
+			return pipeline.get();
+		}
+		Key key = key(message);
+		CompletableFuture<Flux<String>> mine = new CompletableFuture<>();
+		CompletableFuture<Flux<String>> leader = streams.putIfAbsent(key, mine);
+		if (leader != null) {
+			count("stream", "coalesced");
+			return await(leader);
+		}
+		count("stream", "leader");
+		try {
+			// The grace keeps the call for a joiner arriving just after the last subscriber left;
+			// one arriving later starts the generation again, with a fresh replay buffer
+			Flux<String> shared = pipeline.get()
+					.doFinally(signal -> streams.remove(key, mine))
+					.replay()
+					.refCount(1, cancelGrace);
+			mine.complete(shared);
+			return shared;
+		} catch (RuntimeException e) {
+			streams.remove(key, mine);
+			mine.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	Key key(String message) {
+		return new Key(QueryEmbeddingCache.normalize(message), topK, table, options());
+	}
+
+	private String options() {
+		if (options == null) {
+			ChatModel chatModel = chatModels.getIfUnique();
+			ChatOptions defaults = chatModel == null ? null : chatModel.getDefaultOptions();
+			options = RagPipeline.describe(defaults);
+			logger.info("Coalescing completions with model options " + options);
+		}
+		return options;
+	}
+
+	private void count(String mode, String result) {
+		Counter.builder("aims.rag.coalescing.requests")
+				.description("Completions started (leader) or joined to an identical one in flight (coalesced)")
+				.tag("mode", mode)
+				.tag("result", result)
+				.register(registry)
+				.increment();
+	}
+
+	private static <V> V await(CompletableFuture<V> leader) {
+		try {
+			return leader.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Request shed by an AdaptiveConcurrencyLimiter: 429 when its queue is full,
+ * 503 when the wait for a slot timed out.
+ */
+class ConcurrencyLimitExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String limiter;
+
+	private final HttpStatus status;
+
+	private final long retryAfterSeconds;
+
+	ConcurrencyLimitExceededException(String limiter, HttpStatus status, long retryAfterSeconds, String message) {
+		super(message);
+		this.limiter = limiter;
+		this.status = status;
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	String getLimiter() {
+		return limiter;
+	}
+
+	HttpStatus getStatus() {
+		return status;
+	}
+
+	long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+	/**
+	 * OpenAI-style error body, so compatible clients apply their usual backoff.
+	 */
+	Map<String, Object> toErrorBody() {
+		return Map.of("error", Map.of(
+				"message", getMessage(),
+				"type", status == HttpStatus.TOO_MANY_REQUESTS ? "rate_limit_exceeded" : "server_overloaded",
+				"code", limiter + "_concurrency_limit"));
+	}
+
+}
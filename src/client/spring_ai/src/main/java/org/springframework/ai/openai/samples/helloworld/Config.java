@@ -6,8 +6,16 @@ Licensed under the Universal Permissive License v1.0 as shown at http://oss.orac
 package org.springframework.ai.openai.samples.helloworld;
 
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 
 @Configuration
@@ -17,4 +25,38 @@ class Config {
     ChatClient chatClient(ChatClient.Builder builder) {
         return builder.build();
     }
+
+    // Separate limits: a direct prompt and a RAG completion load the model differently
+    @Bean
+    AdaptiveConcurrencyLimiter llmLimiter(Environment env, MeterRegistry registry) {
+        return AdaptiveConcurrencyLimiter.fromEnvironment("llm", env, registry);
+    }
+
+    @Bean
+    AdaptiveConcurrencyLimiter completionsLimiter(Environment env, MeterRegistry registry) {
+        return AdaptiveConcurrencyLimiter.fromEnvironment("completions", env, registry);
+    }
+
+    // Batch jobs get their own slots, so that they cannot starve the interactive completions
+    @Bean
+    AdaptiveConcurrencyLimiter batchLimiter(Environment env, MeterRegistry registry) {
+        return AdaptiveConcurrencyLimiter.fromEnvironment("batch", env, registry);
+    }
+
+    @Bean
+    @Profile("reactive")
+    RouterFunction<ServerResponse> reactiveRoutes(ReactiveAIController controller) {
+        return RouterFunctions.route()
+                .GET("/service/llm", controller::completion)
+                .POST("/chat/completions", controller::completionRag)
+                .GET("/service/search", controller::search)
+                .build();
+    }
+
+    // Tomcat is on the classpath for the servlet controller: serve the reactive profile from Netty
+    @Bean
+    @Profile("reactive")
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
 }
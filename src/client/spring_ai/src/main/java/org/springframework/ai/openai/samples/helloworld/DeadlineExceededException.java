@@ -0,0 +1,40 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * A pipeline stage ran out of its share of the request deadline; answered with 504.
+ */
+class DeadlineExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String stage;
+
+	DeadlineExceededException(String stage, Duration elapsed) {
+		super("Deadline exceeded during " + stage + " after " + elapsed.toMillis() + " ms");
+		this.stage = stage;
+	}
+
+	String getStage() {
+		return stage;
+	}
+
+	/**
+	 * OpenAI-style error body.
+	 */
+	Map<String, Object> toErrorBody() {
+		return Map.of("error", Map.of(
+				"message", getMessage(),
+				"type", "timeout",
+				"code", "deadline_exceeded",
+				"param", stage));
+	}
+
+}
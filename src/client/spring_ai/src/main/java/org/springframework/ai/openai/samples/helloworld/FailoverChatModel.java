@@ -0,0 +1,263 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * With the "failover" profile both the OpenAI and Ollama starters are on the classpath;
+ * this primary ChatModel, used by the ChatClient, spreads each call over them.
+ * Providers are tried in aims.failover.order ("priority") or fastest first by EWMA
+ * latency ("latency"), each behind its own CircuitBreaker. A failed call moves on to
+ * the next provider; a stream only does so before its first token.
+ * Only failures of the provider count: 429, 5xx and I/O errors. Other client errors, such
+ * as a bad request or a context too long, are returned as they are, without failing over.
+ * Each provider runs with its own default options: the prompt options are dropped.
+ */
+@Component
+@Primary
+@Profile("failover")
+class FailoverChatModel implements ChatModel {
+
+	private static final Logger logger = LoggerFactory.getLogger(FailoverChatModel.class);
+
+	private static final double LATENCY_SMOOTHING = 0.2;
+
+	// Spring AI's HTTP error handler reports "<status> - <body>"
+	private static final Pattern STATUS = Pattern.compile("^(\\d{3}) - ");
+
+	private static final class Provider {
+
+		private final String name;
+
+		private final ChatModel model;
+
+		private final CircuitBreaker breaker;
+
+		private volatile double latencyMillis;
+
+		Provider(String name, ChatModel model, CircuitBreaker breaker) {
+			this.name = name;
+			this.model = model;
+			this.breaker = breaker;
+		}
+
+		void succeeded(long start) {
+			double latency = (System.nanoTime() - start) / 1_000_000.0;
+			latencyMillis = latencyMillis == 0 ? latency : latencyMillis + LATENCY_SMOOTHING * (latency - latencyMillis);
+			breaker.onSuccess();
+		}
+
+	}
+
+	private final List<Provider> providers = new ArrayList<>();
+
+	private final boolean preferFastest;
+
+	private final MeterRegistry registry;
+
+	FailoverChatModel(List<ChatModel> chatModels, @Value("${aims.failover.order:openai,ollama}") List<String> order,
+			@Value("${aims.failover.strategy:priority}") String strategy,
+			@Value("${aims.failover.failure_threshold:5}") int failureThreshold,
+			@Value("${aims.failover.open_for:30s}") Duration openFor, MeterRegistry registry) {
+		this.registry = registry;
+		this.preferFastest = "latency".equalsIgnoreCase(strategy);
+		for (ChatModel chatModel : chatModels) {
+			if (chatModel instanceof FailoverChatModel) {
+				continue;
+			}
+			String name = providerName(chatModel);
+			Provider provider = new Provider(name, chatModel, new CircuitBreaker(name, failureThreshold, openFor));
+			providers.add(provider);
+			Gauge.builder("aims.failover.breaker.state", provider.breaker, b -> b.getState().ordinal())
+					.description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+					.tag("provider", name)
+					.register(registry);
+			Gauge.builder("aims.failover.latency", provider, p -> p.latencyMillis)
+					.baseUnit("milliseconds")
+					.tag("provider", name)
+					.register(registry);
+		}
+		providers.sort(Comparator.comparingInt(p -> order.indexOf(p.name) < 0 ? order.size() : order.indexOf(p.name)));
+		logger.info("Chat failover across " + providers.stream().map(p -> p.name).toList() + ", strategy " + strategy);
+	}
+
+	@Override
+	public ChatResponse call(Prompt prompt) {
+		Prompt providerPrompt = new Prompt(prompt.getInstructions());
+		RuntimeException lastError = null;
+		for (Provider provider : candidates()) {
+			if (!provider.breaker.tryAcquire()) {
+				count(provider, "rejected");
+				continue;
+			}
+			long start = System.nanoTime();
+			try {
+				ChatResponse response = provider.model.call(providerPrompt);
+				provider.succeeded(start);
+				count(provider, "success");
+				return response;
+			} catch (RuntimeException e) {
+				if (!isProviderFailure(e)) {
+					provider.breaker.onCancel();
+					count(provider, "client_error");
+					throw e;
+				}
+				provider.breaker.onFailure(e);
+				count(provider, "failure");
+				logger.warn("Chat provider " + provider.name + " failed, failing over: " + e.getMessage());
+				lastError = e;
+			}
+		}
+		throw unavailable(lastError);
+	}
+
+	@Override
+	public Flux<ChatResponse> stream(Prompt prompt) {
+		return Flux.defer(() -> stream(new Prompt(prompt.getInstructions()), candidates(), 0, null));
+	}
+
+	private Flux<ChatResponse> stream(Prompt prompt, List<Provider> candidates, int index, Throwable lastError) {
+		if (index >= candidates.size()) {
+			return Flux.error(unavailable(lastError));
+		}
+		Provider provider = candidates.get(index);
+		if (!provider.breaker.tryAcquire()) {
+			count(provider, "rejected");
+			return stream(prompt, candidates, index + 1, lastError);
+		}
+		long start = System.nanoTime();
+		AtomicBoolean started = new AtomicBoolean();
+		return provider.model.stream(prompt)
+			.doOnNext(response -> {
+				// The breaker judges the provider on its time to first token
+				if (started.compareAndSet(false, true)) {
+					provider.succeeded(start);
+					count(provider, "success");
+				}
+			})
+			.doOnComplete(() -> {
+				if (started.compareAndSet(false, true)) {
+					provider.succeeded(start);
+					count(provider, "success");
+				}
+			})
+			.doOnCancel(() -> {
+				if (!started.get()) {
+					provider.breaker.onCancel();
+				}
+			})
+			.onErrorResume(e -> {
+				if (started.get()) {
+					// Tokens already sent to the client: too late to switch
+					return Flux.error(e);
+				}
+				if (!isProviderFailure(e)) {
+					provider.breaker.onCancel();
+					count(provider, "client_error");
+					return Flux.error(e);
+				}
+				provider.breaker.onFailure(e);
+				count(provider, "failure");
+				logger.warn("Chat provider " + provider.name + " failed, failing over: " + e.getMessage());
+				return stream(prompt, candidates, index + 1, e);
+			});
+	}
+
+	@Override
+	public ChatOptions getDefaultOptions() {
+		return providers.isEmpty() ? null : providers.get(0).model.getDefaultOptions();
+	}
+
+	private List<Provider> candidates() {
+		if (!preferFastest) {
+			return providers;
+		}
+		// Providers without a latency sample yet go first, so they get one
+		return providers.stream().sorted(Comparator.comparingDouble(p -> p.latencyMillis)).toList();
+	}
+
+	private void count(Provider provider, String result) {
+		Counter.builder("aims.failover.calls")
+				.description("Chat calls per provider: success, failure or rejected by an open breaker")
+				.tag("provider", provider.name)
+				.tag("result", result)
+				.register(registry)
+				.increment();
+	}
+
+	/**
+	 * True for the errors that tell about the health of the provider: rate limited (429),
+	 * failing (5xx) or unreachable.
+	 */
+	static boolean isProviderFailure(Throwable error) {
+		for (Throwable e = error; e != null; e = e.getCause()) {
+			if (e instanceof WebClientResponseException response) {
+				return isProviderStatus(response.getStatusCode().value());
+			}
+			if (e instanceof RestClientResponseException response) {
+				return isProviderStatus(response.getStatusCode().value());
+			}
+			if (e instanceof TransientAiException) {
+				return true;
+			}
+			if (e instanceof NonTransientAiException) {
+				Matcher status = STATUS.matcher(String.valueOf(e.getMessage()));
+				return status.find() && isProviderStatus(Integer.parseInt(status.group(1)));
+			}
+			if (e instanceof IOException || e instanceof TimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isProviderStatus(int status) {
+		return status == 429 || status >= 500;
+	}
+
+	private static IllegalStateException unavailable(Throwable lastError) {
+		return new IllegalStateException("No chat provider available", lastError);
+	}
+
+	/**
+	 * "openai" for OpenAiChatModel, "ollama" for OllamaChatModel.
+	 */
+	private static String providerName(ChatModel chatModel) {
+		return chatModel.getClass().getSimpleName().replace("ChatModel", "").toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Brute-force scan of the arena: exact for FLOAT32, and for quantized encodings
+ * exact after rescoring the k * rescoreFactor best candidates when the arena keeps
+ * the full-precision vectors. No build cost and no graph memory; latency grows
+ * linearly with the corpus.
+ */
+class FlatIndex implements VectorIndex {
+
+	private final VectorDistance distance;
+
+	private final VectorArena arena;
+
+	protected final int rescoreFactor;
+
+	private final BitSet deleted = new BitSet();
+
+	private int deletedCount;
+
+	FlatIndex(VectorDistance distance, VectorArena arena, int rescoreFactor) {
+		this.distance = distance;
+		this.arena = arena;
+		this.rescoreFactor = rescoreFactor;
+	}
+
+	@Override
+	public int add(float[] vector) {
+		return arena.add(distance.prepare(vector));
+	}
+
+	@Override
+	public void remove(int node) {
+		if (!deleted.get(node)) {
+			deleted.set(node);
+			deletedCount++;
+		}
+	}
+
+	@Override
+	public boolean isDeleted(int node) {
+		return deleted.get(node);
+	}
+
+	@Override
+	public int deletedCount() {
+		return deletedCount;
+	}
+
+	@Override
+	public VectorArena arena() {
+		return arena;
+	}
+
+	@Override
+	public VectorDistance distance() {
+		return distance;
+	}
+
+	@Override
+	public List<Neighbor> search(float[] query, int k) {
+		Scratch s = Scratch.borrow();
+		try {
+			float[] prepared = distance.prepare(query, s.query(query.length));
+			int keep = arena.rescores() ? k * rescoreFactor : k;
+			s.candidates.clear();
+			int nodes = arena.size();
+			for (int node = 0; node < nodes; node++) {
+				if (!deleted.get(node)) {
+					s.candidates.offer(node, arena.distance(distance, prepared, node, s), keep);
+				}
+			}
+			return arena.nearest(distance, prepared, s, k);
+		} finally {
+			s.release();
+		}
+	}
+
+}
@@ -0,0 +1,326 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Hierarchical Navigable Small World graph (Malkov and Yashunin) over the vectors
+ * of a VectorArena. Each node links to at most m neighbours per layer (2m on layer 0),
+ * picked with the diversity heuristic. The links stay on the heap, about 8m ints per
+ * node; the vectors are in the arena, and with a quantized arena the graph is walked
+ * on the quantized vectors and the ef best nodes are rescored exactly, when the
+ * arena keeps the full-precision copy.
+ * Removed nodes are only marked deleted: they still route searches but are left
+ * out of the results until the index is rebuilt.
+ */
+class HnswIndex implements VectorIndex {
+
+	private static final Comparator<Neighbor> NEAREST_FIRST = Comparator.comparingDouble(Neighbor::distance);
+
+	private final VectorDistance distance;
+
+	private final VectorArena arena;
+
+	private final int m;
+
+	private final int efConstruction;
+
+	private final int efSearch;
+
+	private final double levelMultiplier;
+
+	private final Random random = new Random(42);
+
+	// links.get(node)[level]: neighbour count, then the neighbours
+	private final List<int[][]> links = new ArrayList<>();
+
+	private final BitSet deleted = new BitSet();
+
+	private final float[] decoded;
+
+	private int entryPoint = -1;
+
+	private int maxLevel = -1;
+
+	private int deletedCount;
+
+	HnswIndex(VectorDistance distance, VectorArena arena, int m, int efConstruction, int efSearch) {
+		this.distance = distance;
+		this.arena = arena;
+		this.m = m;
+		this.efConstruction = efConstruction;
+		this.efSearch = efSearch;
+		this.levelMultiplier = 1 / Math.log(m);
+		this.decoded = new float[arena.dimensions()];
+	}
+
+	@Override
+	public int add(float[] vector) {
+		float[] prepared = distance.prepare(vector);
+		int node = arena.add(prepared);
+		int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+		int[][] nodeLinks = new int[level + 1][];
+		for (int l = 0; l <= level; l++) {
+			nodeLinks[l] = new int[maxConnections(l) + 1];
+		}
+		links.add(nodeLinks);
+		if (entryPoint < 0) {
+			entryPoint = node;
+			maxLevel = level;
+			return node;
+		}
+
+		Scratch s = Scratch.borrow();
+		try {
+			int nearest = entryPoint;
+			for (int l = maxLevel; l > level; l--) {
+				nearest = greedy(s, prepared, nearest, l);
+			}
+			for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+				searchLayer(s, prepared, nearest, efConstruction, l, false);
+				List<Neighbor> candidates = s.candidates.drainNearestFirst();
+				for (Neighbor neighbor : selectNeighbors(s, candidates, m)) {
+					connect(s, node, neighbor.node(), l);
+					connect(s, neighbor.node(), node, l);
+				}
+				nearest = candidates.get(0).node();
+			}
+		} finally {
+			s.release();
+		}
+		if (level > maxLevel) {
+			entryPoint = node;
+			maxLevel = level;
+		}
+		return node;
+	}
+
+	@Override
+	public void remove(int node) {
+		if (!deleted.get(node)) {
+			deleted.set(node);
+			deletedCount++;
+		}
+	}
+
+	@Override
+	public boolean isDeleted(int node) {
+		return deleted.get(node);
+	}
+
+	@Override
+	public int deletedCount() {
+		return deletedCount;
+	}
+
+	@Override
+	public VectorArena arena() {
+		return arena;
+	}
+
+	@Override
+	public VectorDistance distance() {
+		return distance;
+	}
+
+	@Override
+	public List<Neighbor> search(float[] query, int k) {
+		return search(query, k, efSearch);
+	}
+
+	/**
+	 * Approximate k nearest live nodes, nearest first, exploring ef candidates on layer 0.
+	 */
+	List<Neighbor> search(float[] query, int k, int ef) {
+		if (entryPoint < 0) {
+			return List.of();
+		}
+		Scratch s = Scratch.borrow();
+		try {
+			float[] prepared = distance.prepare(query, s.query(query.length));
+			int nearest = entryPoint;
+			for (int l = maxLevel; l > 0; l--) {
+				nearest = greedy(s, prepared, nearest, l);
+			}
+			searchLayer(s, prepared, nearest, Math.max(ef, k), 0, true);
+			return arena.nearest(distance, prepared, s, k);
+		} finally {
+			s.release();
+		}
+	}
+
+	/**
+	 * Entry point and top level, then for each node its levels, each as a neighbour
+	 * count followed by the neighbours.
+	 */
+	@Override
+	public void writeGraph(DataOutput out) throws IOException {
+		out.writeInt(entryPoint);
+		out.writeInt(maxLevel);
+		for (int[][] nodeLinks : links) {
+			out.writeInt(nodeLinks.length);
+			for (int[] neighbors : nodeLinks) {
+				out.writeInt(neighbors[0]);
+				for (int i = 1; i <= neighbors[0]; i++) {
+					out.writeInt(neighbors[i]);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void readGraph(DataInput in) throws IOException {
+		entryPoint = in.readInt();
+		maxLevel = in.readInt();
+		links.clear();
+		int nodes = arena.size();
+		for (int node = 0; node < nodes; node++) {
+			int[][] nodeLinks = new int[in.readInt()][];
+			for (int l = 0; l < nodeLinks.length; l++) {
+				int[] neighbors = new int[maxConnections(l) + 1];
+				neighbors[0] = in.readInt();
+				if (neighbors[0] < 0 || neighbors[0] > maxConnections(l)) {
+					throw new IOException("Node " + node + " has " + neighbors[0] + " links on level " + l
+							+ ", more than m=" + m + " allows");
+				}
+				for (int i = 1; i <= neighbors[0]; i++) {
+					neighbors[i] = in.readInt();
+				}
+				nodeLinks[l] = neighbors;
+			}
+			links.add(nodeLinks);
+		}
+		if (nodes > 0 && (entryPoint < 0 || entryPoint >= nodes)) {
+			throw new IOException("Entry point " + entryPoint + " out of " + nodes + " nodes");
+		}
+	}
+
+	private int greedy(Scratch s, float[] query, int start, int level) {
+		int nearest = start;
+		float nearestDistance = arena.distance(distance, query, start, s);
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			int[] neighbors = links.get(nearest)[level];
+			for (int i = 1; i <= neighbors[0]; i++) {
+				float d = arena.distance(distance, query, neighbors[i], s);
+				if (d < nearestDistance) {
+					nearest = neighbors[i];
+					nearestDistance = d;
+					improved = true;
+				}
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Best-first search of one layer, leaving up to ef nodes in s.candidates.
+	 * With liveOnly, deleted nodes are traversed but not kept.
+	 */
+	private void searchLayer(Scratch s, float[] query, int entry, int ef, int level, boolean liveOnly) {
+		s.resetVisits(arena.size());
+		s.visit(entry);
+		NeighborQueue frontier = s.frontier;
+		NeighborQueue results = s.candidates;
+		frontier.clear();
+		results.clear();
+		float entryDistance = arena.distance(distance, query, entry, s);
+		frontier.push(entry, entryDistance);
+		if (!liveOnly || !deleted.get(entry)) {
+			results.push(entry, entryDistance);
+		}
+		while (!frontier.isEmpty()) {
+			int candidate = frontier.topNode();
+			float candidateDistance = frontier.topDistance();
+			frontier.pop();
+			if (results.size() >= ef && candidateDistance > results.topDistance()) {
+				break;
+			}
+			int[][] candidateLinks = links.get(candidate);
+			if (level >= candidateLinks.length) {
+				continue;
+			}
+			int[] neighbors = candidateLinks[level];
+			for (int i = 1; i <= neighbors[0]; i++) {
+				int node = neighbors[i];
+				if (!s.visit(node)) {
+					continue;
+				}
+				float d = arena.distance(distance, query, node, s);
+				if (results.size() < ef || d < results.topDistance()) {
+					frontier.push(node, d);
+					if (!liveOnly || !deleted.get(node)) {
+						results.offer(node, d, ef);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keeps a candidate only if it is closer to the base node than to every neighbour
+	 * already kept, which spreads the links over the directions around the node.
+	 */
+	private List<Neighbor> selectNeighbors(Scratch s, List<Neighbor> candidates, int max) {
+		List<Neighbor> selected = new ArrayList<>(max);
+		for (Neighbor candidate : candidates) {
+			if (selected.size() >= max) {
+				break;
+			}
+			// Stored vectors are already prepared
+			arena.read(candidate.node(), decoded, s);
+			boolean diverse = true;
+			for (Neighbor kept : selected) {
+				if (arena.distance(distance, decoded, kept.node(), s) < candidate.distance()) {
+					diverse = false;
+					break;
+				}
+			}
+			if (diverse) {
+				selected.add(candidate);
+			}
+		}
+		return selected;
+	}
+
+	private void connect(Scratch s, int from, int to, int level) {
+		int[] neighbors = links.get(from)[level];
+		int count = neighbors[0];
+		if (count < neighbors.length - 1) {
+			neighbors[count + 1] = to;
+			neighbors[0] = count + 1;
+			return;
+		}
+		// Full: re-select among the current neighbours plus the new one
+		arena.read(from, decoded, s);
+		float[] base = decoded;
+		List<Neighbor> candidates = new ArrayList<>(count + 1);
+		for (int i = 1; i <= count; i++) {
+			candidates.add(new Neighbor(neighbors[i], arena.distance(distance, base, neighbors[i], s)));
+		}
+		candidates.add(new Neighbor(to, arena.distance(distance, base, to, s)));
+		candidates.sort(NEAREST_FIRST);
+		List<Neighbor> selected = selectNeighbors(s, candidates, maxConnections(level));
+		neighbors[0] = selected.size();
+		for (int i = 0; i < selected.size(); i++) {
+			neighbors[i + 1] = selected.get(i).node();
+		}
+	}
+
+	private int maxConnections(int level) {
+		return level == 0 ? 2 * m : m;
+	}
+
+}
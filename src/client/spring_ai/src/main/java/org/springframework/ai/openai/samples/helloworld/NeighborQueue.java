@@ -0,0 +1,133 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary heap of (node, distance) pairs in two primitive arrays, nearest or farthest
+ * on top. Kept per thread and cleared between searches, so a search allocates
+ * nothing once the arrays have grown to its ef.
+ */
+final class NeighborQueue {
+
+	private final boolean farthestOnTop;
+
+	private int[] nodes;
+
+	private float[] distances;
+
+	private int size;
+
+	NeighborQueue(int capacity, boolean farthestOnTop) {
+		this.farthestOnTop = farthestOnTop;
+		this.nodes = new int[capacity];
+		this.distances = new float[capacity];
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int topNode() {
+		return nodes[0];
+	}
+
+	float topDistance() {
+		return distances[0];
+	}
+
+	void push(int node, float distance) {
+		if (size == nodes.length) {
+			nodes = Arrays.copyOf(nodes, size * 2);
+			distances = Arrays.copyOf(distances, size * 2);
+		}
+		int i = size++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!above(distance, distances[parent])) {
+				break;
+			}
+			nodes[i] = nodes[parent];
+			distances[i] = distances[parent];
+			i = parent;
+		}
+		nodes[i] = node;
+		distances[i] = distance;
+	}
+
+	/**
+	 * Keeps the max nearest pairs: on a farthest-on-top queue, pushes the pair and
+	 * drops the farthest when over max. Returns false if the pair was not kept.
+	 */
+	boolean offer(int node, float distance, int max) {
+		if (size < max) {
+			push(node, distance);
+			return true;
+		}
+		if (distance >= distances[0]) {
+			return false;
+		}
+		pop();
+		push(node, distance);
+		return true;
+	}
+
+	void pop() {
+		size--;
+		if (size == 0) {
+			return;
+		}
+		int node = nodes[size];
+		float distance = distances[size];
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && above(distances[child + 1], distances[child])) {
+				child++;
+			}
+			if (!above(distances[child], distance)) {
+				break;
+			}
+			nodes[i] = nodes[child];
+			distances[i] = distances[child];
+			i = child;
+		}
+		nodes[i] = node;
+		distances[i] = distance;
+	}
+
+	/**
+	 * Empties the queue into a list, nearest first.
+	 */
+	List<VectorIndex.Neighbor> drainNearestFirst() {
+		int count = size;
+		VectorIndex.Neighbor[] sorted = new VectorIndex.Neighbor[count];
+		for (int n = 0; n < count; n++) {
+			// A farthest-on-top queue pops the farthest first
+			sorted[farthestOnTop ? count - 1 - n : n] = new VectorIndex.Neighbor(topNode(), topDistance());
+			pop();
+		}
+		return Arrays.asList(sorted);
+	}
+
+	private boolean above(float a, float b) {
+		return farthestOnTop ? a > b : a < b;
+	}
+
+}
@@ -0,0 +1,332 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Spreads the Ollama chat and embedding calls over the replicas listed in
+ * aims.ollama.base_urls. Requests that Spring AI sends to spring.ai.ollama.base-url are
+ * redirected, on both the RestClient and WebClient it builds, to the healthy backend with
+ * the lowest (outstanding requests + 1) x EWMA latency. A backend is ejected after
+ * eject_after consecutive failures and put back once its /api/tags answers again.
+ * The path of spring.ai.ollama.base-url is replaced by the path of the backend's URL,
+ * so replicas behind a reverse proxy prefix are fine.
+ * With no base_urls, requests go through untouched.
+ */
+@Component
+class OllamaLoadBalancer implements RestClientCustomizer, WebClientCustomizer {
+
+	private static final Logger logger = LoggerFactory.getLogger(OllamaLoadBalancer.class);
+
+	private static final double LATENCY_SMOOTHING = 0.2;
+
+	static final class Backend {
+
+		private final URI baseUrl;
+
+		private final AtomicInteger outstanding = new AtomicInteger();
+
+		private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+		private volatile double latencyMillis;
+
+		private volatile boolean healthy = true;
+
+		Backend(URI baseUrl) {
+			this.baseUrl = baseUrl;
+		}
+
+		URI getBaseUrl() {
+			return baseUrl;
+		}
+
+		int getOutstanding() {
+			return outstanding.get();
+		}
+
+		double getLatencyMillis() {
+			return latencyMillis;
+		}
+
+		boolean isHealthy() {
+			return healthy;
+		}
+
+	}
+
+	private final URI ollamaBaseUrl;
+
+	private final List<Backend> backends = new ArrayList<>();
+
+	private final int ejectAfter;
+
+	private final RestClient probeClient;
+
+	OllamaLoadBalancer(@Value("${spring.ai.ollama.base-url:http://localhost:11434}") String ollamaBaseUrl,
+			@Value("${aims.ollama.base_urls:}") List<String> baseUrls,
+			@Value("${aims.ollama.eject_after:3}") int ejectAfter,
+			@Value("${aims.ollama.probe_timeout:2s}") Duration probeTimeout, MeterRegistry registry) {
+		this.ollamaBaseUrl = URI.create(ollamaBaseUrl);
+		this.ejectAfter = ejectAfter;
+		for (String baseUrl : baseUrls) {
+			if (!baseUrl.isBlank()) {
+				Backend backend = new Backend(URI.create(baseUrl.trim()));
+				backends.add(backend);
+				String tag = backend.baseUrl.getAuthority();
+				Gauge.builder("aims.ollama.backend.outstanding", backend, Backend::getOutstanding)
+						.tag("backend", tag)
+						.register(registry);
+				Gauge.builder("aims.ollama.backend.latency", backend, Backend::getLatencyMillis)
+						.baseUnit("milliseconds")
+						.tag("backend", tag)
+						.register(registry);
+				Gauge.builder("aims.ollama.backend.healthy", backend, b -> b.healthy ? 1 : 0)
+						.tag("backend", tag)
+						.register(registry);
+			}
+		}
+		// Probes must not go through the customized builders
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(probeTimeout);
+		requestFactory.setReadTimeout(probeTimeout);
+		this.probeClient = RestClient.builder().requestFactory(requestFactory).build();
+		if (!backends.isEmpty()) {
+			logger.info("Balancing Ollama requests for " + ollamaBaseUrl + " across " + baseUrls);
+		}
+	}
+
+	@Override
+	public void customize(RestClient.Builder restClientBuilder) {
+		restClientBuilder.requestInterceptor((request, body, execution) -> {
+			if (!isBalanced(request.getURI())) {
+				return execution.execute(request, body);
+			}
+			Backend backend = choose();
+			URI target = rewrite(request.getURI(), backend);
+			long start = started(backend);
+			try {
+				ClientHttpResponse response = execution.execute(new HttpRequestWrapper(request) {
+					@Override
+					public URI getURI() {
+						return target;
+					}
+				}, body);
+				finished(backend, start, !response.getStatusCode().is5xxServerError());
+				return response;
+			} catch (IOException | RuntimeException e) {
+				finished(backend, start, false);
+				throw e;
+			}
+		});
+	}
+
+	@Override
+	public void customize(WebClient.Builder webClientBuilder) {
+		webClientBuilder.filter((request, next) -> {
+			if (!isBalanced(request.url())) {
+				return next.exchange(request);
+			}
+			Backend backend = choose();
+			ClientRequest rewritten = ClientRequest.from(request).url(rewrite(request.url(), backend)).build();
+			return Mono.defer(() -> {
+				Exchange exchange = new Exchange(backend);
+				// Streamed generations stay outstanding until their body ends
+				return next.exchange(rewritten)
+					.map(response -> {
+						exchange.responded(!response.statusCode().is5xxServerError());
+						return response.mutate().body(body -> body.doFinally(exchange::release)).build();
+					})
+					.doFinally(signal -> {
+						if (!exchange.hasResponse()) {
+							exchange.release(signal);
+						}
+					});
+			});
+		});
+	}
+
+	@Scheduled(initialDelayString = "${aims.ollama.probe_interval:PT10S}",
+			fixedDelayString = "${aims.ollama.probe_interval:PT10S}")
+	void probe() {
+		for (Backend backend : backends) {
+			if (!backend.healthy) {
+				try {
+					probeClient.get().uri(backend.baseUrl.resolve("/api/tags")).retrieve().toBodilessEntity();
+					backend.consecutiveFailures.set(0);
+					backend.healthy = true;
+					logger.info("Ollama backend " + backend.baseUrl + " is back, restoring it");
+				} catch (RuntimeException e) {
+					logger.debug("Ollama backend " + backend.baseUrl + " still down: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	boolean isBalanced(URI uri) {
+		return !backends.isEmpty() && Objects.equals(uri.getScheme(), ollamaBaseUrl.getScheme())
+				&& Objects.equals(uri.getHost(), ollamaBaseUrl.getHost()) && port(uri) == port(ollamaBaseUrl);
+	}
+
+	/**
+	 * Least outstanding requests weighted by latency; a backend with no latency sample yet
+	 * is scored with the mean of the others. Falls back to every backend when none is healthy.
+	 */
+	Backend choose() {
+		List<Backend> candidates = backends.stream().filter(Backend::isHealthy).toList();
+		if (candidates.isEmpty()) {
+			candidates = backends;
+		}
+		double meanLatency = candidates.stream()
+			.mapToDouble(Backend::getLatencyMillis)
+			.filter(latency -> latency > 0)
+			.average()
+			.orElse(1);
+		// Random starting point so ties don't all land on the first backend
+		int offset = ThreadLocalRandom.current().nextInt(candidates.size());
+		Backend best = null;
+		double bestScore = Double.MAX_VALUE;
+		for (int i = 0; i < candidates.size(); i++) {
+			Backend backend = candidates.get((offset + i) % candidates.size());
+			double latency = backend.latencyMillis > 0 ? backend.latencyMillis : meanLatency;
+			double score = (backend.outstanding.get() + 1) * latency;
+			if (score < bestScore) {
+				best = backend;
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+
+	List<Backend> getBackends() {
+		return backends;
+	}
+
+	/**
+	 * One balanced WebClient exchange, outstanding on its backend until released once:
+	 * when the response body ends, or when the exchange fails or is cancelled before
+	 * a response. A cancellation is the caller giving up, not a backend failure: it
+	 * only gives the slot back.
+	 */
+	private final class Exchange {
+
+		private final Backend backend;
+
+		private final long start;
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private volatile boolean responded;
+
+		private volatile boolean success;
+
+		Exchange(Backend backend) {
+			this.backend = backend;
+			this.start = started(backend);
+		}
+
+		void responded(boolean success) {
+			this.success = success;
+			this.responded = true;
+		}
+
+		boolean hasResponse() {
+			return responded;
+		}
+
+		void release(SignalType signal) {
+			if (!released.compareAndSet(false, true)) {
+				return;
+			}
+			if (signal == SignalType.CANCEL) {
+				backend.outstanding.decrementAndGet();
+			} else {
+				finished(backend, start, signal == SignalType.ON_COMPLETE && success);
+			}
+		}
+
+	}
+
+	private long started(Backend backend) {
+		backend.outstanding.incrementAndGet();
+		return System.nanoTime();
+	}
+
+	private void finished(Backend backend, long start, boolean success) {
+		backend.outstanding.decrementAndGet();
+		if (success) {
+			double latency = (System.nanoTime() - start) / 1_000_000.0;
+			backend.latencyMillis = backend.latencyMillis == 0 ? latency
+					: backend.latencyMillis + LATENCY_SMOOTHING * (latency - backend.latencyMillis);
+			backend.consecutiveFailures.set(0);
+		} else if (backend.consecutiveFailures.incrementAndGet() >= ejectAfter && backend.healthy) {
+			backend.healthy = false;
+			logger.warn("Ejecting Ollama backend " + backend.baseUrl + " after " + ejectAfter + " consecutive failures");
+		}
+	}
+
+	/**
+	 * The request on the backend: its scheme, host and port, and its base path in place
+	 * of the one of spring.ai.ollama.base-url.
+	 */
+	private URI rewrite(URI uri, Backend backend) {
+		String path = Objects.requireNonNullElse(uri.getRawPath(), "");
+		String basePath = basePath(ollamaBaseUrl);
+		if (path.startsWith(basePath)) {
+			path = path.substring(basePath.length());
+		}
+		return UriComponentsBuilder.fromUri(uri)
+			.scheme(backend.baseUrl.getScheme())
+			.host(backend.baseUrl.getHost())
+			.port(backend.baseUrl.getPort())
+			.replacePath(basePath(backend.baseUrl) + path)
+			.build(true)
+			.toUri();
+	}
+
+	private static String basePath(URI baseUrl) {
+		String path = Objects.requireNonNullElse(baseUrl.getRawPath(), "");
+		return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+	}
+
+	private static int port(URI uri) {
+		if (uri.getPort() != -1) {
+			return uri.getPort();
+		}
+		return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of normalized query text to its embedding, so that repeated
+ * questions skip the round trip to the EmbeddingModel.
+ * Eviction is W-TinyLFU weighted by the approximate size of each entry.
+ * An embedding the caller already holds can also be handed to the vector search
+ * with {@link #using}, whether the cache is enabled or not.
+ */
+@Component
+class QueryEmbeddingCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(QueryEmbeddingCache.class);
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private final boolean enabled;
+
+	private final Cache<String, float[]> cache;
+
+	private record Pinned(String key, float[] embedding) {
+	}
+
+	// The embedding given to using(), for the VectorStore call made on the same thread
+	private final ThreadLocal<Pinned> pinned = new ThreadLocal<>();
+
+	QueryEmbeddingCache(MeterRegistry registry,
+			@Value("${aims.embedding_cache.enabled:true}") boolean enabled,
+			@Value("${aims.embedding_cache.max_bytes:67108864}") long maxBytes,
+			@Value("${aims.embedding_cache.ttl:1h}") Duration ttl) {
+
+		this.enabled = enabled;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(maxBytes)
+				.weigher((String key, float[] vector) -> 2 * key.length() + 4 * vector.length)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(registry, cache, "aims.query_embedding");
+		logger.info("Query embedding cache enabled: " + enabled + ", max bytes: " + maxBytes + ", ttl: " + ttl);
+	}
+
+	static String normalize(String query) {
+		String text = Normalizer.normalize(query, Normalizer.Form.NFKC);
+		return WHITESPACE.matcher(text).replaceAll(" ").trim();
+	}
+
+	float[] embed(String query, Function<String, float[]> embedder) {
+		String key = normalize(query);
+		Pinned given = pinned.get();
+		if (given != null && given.key().equals(key)) {
+			return given.embedding();
+		}
+		if (!enabled) {
+			return embedder.apply(key);
+		}
+		// Not cache.get(key, embedder): the loader would run the HTTP call inside a
+		// ConcurrentHashMap bin lock, pinning the carrier when requests run on virtual threads
+		float[] embedding = cache.getIfPresent(key);
+		if (embedding == null) {
+			embedding = embedder.apply(key);
+			cache.put(key, embedding);
+		}
+		return embedding;
+	}
+
+	/**
+	 * Runs the call, typically VectorStore.similaritySearch, with the embedding of the query
+	 * already known: embed() returns it rather than asking the EmbeddingModel again.
+	 */
+	<T> T using(String query, float[] embedding, Supplier<T> call) {
+		Pinned previous = pinned.get();
+		pinned.set(new Pinned(normalize(query), embedding));
+		try {
+			return call.get();
+		} finally {
+			pinned.set(previous);
+		}
+	}
+
+	/**
+	 * The cached embedding of the query, or null.
+	 */
+	float[] get(String query) {
+		return enabled ? cache.getIfPresent(normalize(query)) : null;
+	}
+
+	void put(String query, float[] embedding) {
+		if (enabled) {
+			cache.put(normalize(query), embedding);
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Latency of each RAG pipeline stage (embedding, search, prompt, llm), tagged with
+ * the provider profile, plus the size of what flows between the stages.
+ * Published as aims.rag.* with p50/p95/p99 and histogram buckets for Prometheus.
+ */
+@Component
+class RagMetrics {
+
+	private final MeterRegistry registry;
+
+	private final String provider;
+
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	private final DistributionSummary documents;
+
+	private final DistributionSummary promptChars;
+
+	private final DistributionSummary promptTokens;
+
+	private final DistributionSummary completionTokens;
+
+	RagMetrics(MeterRegistry registry, @Value("${aims.provider:${PROVIDER:unknown}}") String provider) {
+		this.registry = registry;
+		this.provider = provider;
+		this.documents = summary("aims.rag.documents", "documents");
+		this.promptChars = summary("aims.rag.prompt.chars", "characters");
+		this.promptTokens = summary("aims.rag.prompt.tokens", "tokens");
+		this.completionTokens = summary("aims.rag.completion.tokens", "tokens");
+	}
+
+	<T> T time(String stage, Supplier<T> stageCall) {
+		return timer(stage).record(stageCall);
+	}
+
+	void record(String stage, long nanos) {
+		timer(stage).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	void recordDocuments(int count) {
+		documents.record(count);
+	}
+
+	void recordPrompt(String prompt) {
+		promptChars.record(prompt.length());
+	}
+
+	void recordTokens(Number prompt, Number total) {
+		if (prompt != null) {
+			promptTokens.record(prompt.doubleValue());
+			if (total != null) {
+				completionTokens.record(total.doubleValue() - prompt.doubleValue());
+			}
+		}
+	}
+
+	private Timer timer(String stage) {
+		return timers.computeIfAbsent(stage, s -> Timer.builder("aims.rag.stage")
+				.description("Latency of a RAG pipeline stage")
+				.tag("stage", s)
+				.tag("provider", provider)
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.publishPercentileHistogram()
+				.register(registry));
+	}
+
+	private DistributionSummary summary(String name, String unit) {
+		return DistributionSummary.builder(name)
+				.baseUnit(unit)
+				.tag("provider", provider)
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(registry);
+	}
+
+}
@@ -0,0 +1,322 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The RAG steps shared by AIController and ReactiveAIController: query embedding,
+ * vector search, semantic answer and completion caches and prompt building, plus the OpenAI-style
+ * response shapes. All methods are blocking; the deadline-aware overloads give up
+ * with DeadlineExceededException when their stage runs out of time.
+ */
+@Component
+class RagPipeline {
+
+	private static final Logger logger = LoggerFactory.getLogger(RagPipeline.class);
+
+	private final VectorStore vectorStore;
+
+	private final EmbeddingModel embeddingModel;
+
+	private final QueryEmbeddingCache queryEmbeddings;
+
+	private final SemanticAnswerCache answerCache;
+
+	private final RagMetrics metrics;
+
+	private final StageExecutor stages;
+
+	private final CompletionCache completions;
+
+	@Value("${aims.context_instr}")
+	private String contextInstr;
+
+	@Value("${aims.rag_params.top_k}")
+	private int TOPK;
+
+	@Value("${aims.prompt.layout:legacy}")
+	private String layout;
+
+	RagPipeline(VectorStore vectorStore, EmbeddingModel embeddingModel, QueryEmbeddingCache queryEmbeddings,
+			SemanticAnswerCache answerCache, RagMetrics metrics, StageExecutor stages, CompletionCache completions) {
+
+		this.vectorStore = vectorStore;
+		this.embeddingModel = embeddingModel;
+		this.queryEmbeddings = queryEmbeddings;
+		this.answerCache = answerCache;
+		this.metrics = metrics;
+		this.stages = stages;
+		this.completions = completions;
+
+	}
+
+	float[] embed(String message) {
+
+		return metrics.time("embedding", () -> queryEmbeddings.embed(message, embeddingModel::embed));
+
+	}
+
+	float[] embed(String message, RequestDeadline deadline) {
+
+		// Only the calls to the model, on a cache miss, count for the hedging threshold
+		return metrics.time("embedding", () -> stages.run("embedding", deadline, true,
+				() -> queryEmbeddings.embed(message,
+						text -> stages.measure("embedding", () -> embeddingModel.embed(text)))));
+
+	}
+
+	List<Document> retrieve(String message) {
+
+		return search(message, TOPK);
+
+	}
+
+	/**
+	 * The vector search for a message already embedded: the store gets its embedding
+	 * rather than embedding the message again.
+	 */
+	List<Document> retrieve(String message, float[] embedding, RequestDeadline deadline) {
+
+		List<Document> similarDocuments = metrics.time("search", () -> stages.run("search", deadline, true,
+				() -> stages.measure("search", () -> queryEmbeddings.using(message, embedding,
+						() -> this.vectorStore.similaritySearch(SearchRequest.builder().query(message).topK(TOPK).build())))));
+		metrics.recordDocuments(similarDocuments.size());
+		return similarDocuments;
+
+	}
+
+	List<Document> search(String message, int topK) {
+
+		List<Document> similarDocuments = metrics.time("search", () -> this.vectorStore.similaritySearch(
+				SearchRequest.builder().query(message).topK(topK).build()));
+		metrics.recordDocuments(similarDocuments.size());
+		return similarDocuments;
+
+	}
+
+	List<Document> search(String message, float[] embedding, int topK) {
+
+		return queryEmbeddings.using(message, embedding, () -> search(message, topK));
+
+	}
+
+	Optional<String> cachedAnswer(float[] embedding, List<Document> similarDocuments) {
+
+		if (!answerCache.isEnabled()) {
+			return Optional.empty();
+		}
+		return answerCache.lookup(embedding, ids(similarDocuments)).map(SemanticAnswerCache.Entry::answer);
+
+	}
+
+	void cacheAnswer(String message, float[] embedding, List<Document> similarDocuments, String answer) {
+
+		if (answerCache.isEnabled()) {
+			answerCache.put(message, embedding, ids(similarDocuments), answer);
+		}
+
+	}
+
+	Optional<String> cachedCompletion(Prompt prompt) {
+
+		return completions.get(prompt);
+
+	}
+
+	void cacheCompletion(Prompt prompt, String completion) {
+
+		completions.put(prompt, completion);
+
+	}
+
+	public Prompt promptEngineering(String message, String contextInstr) {
+
+		return promptEngineering(message, retrieve(message));
+
+	}
+
+	Prompt promptEngineering(String message, List<Document> similarDocuments) {
+
+		if ("prefix_cache".equalsIgnoreCase(layout)) {
+			return prefixCachePrompt(message, similarDocuments);
+		}
+
+		String template = """
+				DOCUMENTS:
+				{documents}
+
+				QUESTION:
+				{question}
+
+				INSTRUCTIONS:""";
+
+		String default_Instr = """
+					Answer the users question using the DOCUMENTS text above.
+				Keep your answer ground in the facts of the DOCUMENTS.
+				If the DOCUMENTS doesn’t contain the facts to answer the QUESTION, return:
+				I'm sorry but I haven't enough information to answer.
+				""";
+
+		//This template doesn't work with agent pattern, but only via RAG
+		//The contextInstr coming from AI Explorer can't be used here: default only
+		template = template + "\n" + default_Instr;
+
+		String ragTemplate = template;
+		Prompt prompt = metrics.time("prompt", () -> {
+			StringBuilder context = createContext(similarDocuments);
+
+			PromptTemplate promptTemplate = new PromptTemplate(ragTemplate);
+
+			return promptTemplate.create(Map.of("documents", context, "question", message));
+		});
+		metrics.recordPrompt(prompt.getContents());
+
+		logger.info(prompt.toString());
+
+		return prompt;
+
+	}
+
+	/**
+	 * Stable parts first, so that consecutive prompts share the longest possible prefix
+	 * in the LLM server's KV / prompt cache: instructions and context_instr, then the
+	 * documents in ID order without the per-query search distance, then the question.
+	 */
+	Prompt prefixCachePrompt(String message, List<Document> similarDocuments) {
+
+		String template = """
+				INSTRUCTIONS:
+				Answer the users question using the DOCUMENTS text below.
+				Keep your answer ground in the facts of the DOCUMENTS.
+				If the DOCUMENTS doesn’t contain the facts to answer the QUESTION, return:
+				I'm sorry but I haven't enough information to answer.
+				{context_instr}
+
+				DOCUMENTS:
+				{documents}
+
+				QUESTION:
+				{question}
+				""";
+
+		Prompt prompt = metrics.time("prompt", () -> {
+			StringBuilder context = createStableContext(similarDocuments);
+
+			PromptTemplate promptTemplate = new PromptTemplate(template);
+
+			return promptTemplate.create(Map.of("context_instr", contextInstr == null ? "" : contextInstr.strip(),
+					"documents", context, "question", message));
+		});
+		metrics.recordPrompt(prompt.getContents());
+
+		logger.info(prompt.toString());
+
+		return prompt;
+
+	}
+
+	StringBuilder createStableContext(List<Document> similarDocuments) {
+		String START = "\n<article>\n";
+		String STOP = "\n</article>\n";
+
+		List<Document> sorted = new ArrayList<>(similarDocuments);
+		sorted.sort(Comparator.comparing(Document::getId));
+		StringBuilder context = new StringBuilder();
+		for (Document document : sorted) {
+			context.append(document.getId() + ".");
+			context.append(START);
+			// Same shape as getFormattedContent(), with the metadata sorted and the distance left out
+			new TreeMap<>(document.getMetadata()).forEach((key, value) -> {
+				if (!"distance".equals(key)) {
+					context.append(key + ": " + value + "\n");
+				}
+			});
+			context.append("\n" + document.getText() + STOP);
+		}
+		return context;
+	}
+
+	StringBuilder createContext(List<Document> similarDocuments) {
+		String START = "\n<article>\n";
+		String STOP = "\n</article>\n";
+
+		Iterator<Document> iterator = similarDocuments.iterator();
+		StringBuilder context = new StringBuilder();
+		while (iterator.hasNext()) {
+			Document document = iterator.next();
+			context.append(document.getId() + ".");
+			context.append(START + document.getFormattedContent() + STOP);
+		}
+		return context;
+	}
+
+	/**
+	 * The chat options that shape a completion, as a stable string for cache keys.
+	 */
+	static String describe(ChatOptions options) {
+		if (options == null) {
+			return "";
+		}
+		return options.getModel() + "|" + options.getTemperature() + "|" + options.getTopP() + "|"
+				+ options.getTopK() + "|" + options.getMaxTokens() + "|" + options.getFrequencyPenalty() + "|"
+				+ options.getPresencePenalty();
+	}
+
+	static List<String> ids(List<Document> documents) {
+		return documents.stream().map(Document::getId).toList();
+	}
+
+	static Map<String, Object> choices(String content) {
+		Map<String, Object> messageMap = Map.of("content", content);
+		Map<String, Object> choicesMap = Map.of("message", messageMap);
+		List<Map<String, Object>> choicesList = List.of(choicesMap);
+
+		return Map.of("choices", choicesList);
+	}
+
+	static Map<String, Object> chunk(String id, Map<String, Object> delta, String finishReason) {
+		Map<String, Object> choice = new HashMap<>();
+		choice.put("index", 0);
+		choice.put("delta", delta);
+		choice.put("finish_reason", finishReason);
+		return Map.of(
+				"id", id,
+				"object", "chat.completion.chunk",
+				"created", System.currentTimeMillis() / 1000,
+				"choices", List.of(choice));
+	}
+
+	static List<Map<String, Object>> searchResults(List<Document> similarDocs) {
+		List<Map<String, Object>> resultList = new ArrayList<>();
+		for (Document d : similarDocs) {
+			Map<String, Object> doc = new HashMap<>();
+			doc.put("id", d.getId());
+			resultList.add(doc);
+		}
+		return resultList;
+	}
+
+}
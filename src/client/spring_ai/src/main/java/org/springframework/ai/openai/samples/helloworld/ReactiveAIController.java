@@ -0,0 +1,198 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking variant of AIController, active with the "reactive" Spring profile.
+ * Same endpoints, routed in Config: the LLM is consumed through ChatClient.stream(),
+ * while the embedding and JDBC vector search, which have no reactive API in Spring AI,
+ * run on virtual threads so the event loop never blocks.
+ */
+@Component
+@Profile("reactive")
+class ReactiveAIController {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReactiveAIController.class);
+
+	private record Retrieval(String message, float[] embedding, List<Document> documents, String cached,
+			Prompt prompt) {
+	}
+
+	private final ChatClient chatClient;
+
+	private final RagPipeline rag;
+
+	private final RagMetrics metrics;
+
+	private final CompletionCoalescer coalescer;
+
+	private final AdaptiveConcurrencyLimiter llmLimiter;
+
+	private final AdaptiveConcurrencyLimiter completionsLimiter;
+
+	private final StageExecutor stages;
+
+	private final Scheduler blocking = Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(),
+			"rag-blocking");
+
+	ReactiveAIController(ChatClient chatClient, RagPipeline rag, RagMetrics metrics, CompletionCoalescer coalescer,
+			@Qualifier("llmLimiter") AdaptiveConcurrencyLimiter llmLimiter,
+			@Qualifier("completionsLimiter") AdaptiveConcurrencyLimiter completionsLimiter, StageExecutor stages) {
+		this.chatClient = chatClient;
+		this.rag = rag;
+		this.metrics = metrics;
+		this.coalescer = coalescer;
+		this.llmLimiter = llmLimiter;
+		this.completionsLimiter = completionsLimiter;
+		this.stages = stages;
+	}
+
+	@PreDestroy
+	void close() {
+		blocking.dispose();
+	}
+
+	Mono<ServerResponse> completion(ServerRequest request) {
+		String message = request.queryParam("message").orElse("Tell me a joke");
+		// Waiting for a slot blocks: acquire on a virtual thread
+		return llmLimiter.stream(blocking, permit -> {
+			long start = System.nanoTime();
+			return chatClient.prompt().user(message).stream().content()
+				.doOnNext(token -> permit.firstToken())
+				.doOnComplete(() -> metrics.record("llm_direct", System.nanoTime() - start));
+		})
+			.collect(Collectors.joining())
+			.flatMap(content -> ServerResponse.ok().bodyValue(Map.of("completion", content)))
+			.onErrorResume(ConcurrencyLimitExceededException.class, this::limitExceeded);
+	}
+
+	Mono<ServerResponse> completionRag(ServerRequest request) {
+		return request.bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {
+		}).flatMap(requestBody -> {
+			String message = String.valueOf(requestBody.getOrDefault("message", "Tell me a joke"));
+			boolean stream = Boolean.parseBoolean(String.valueOf(requestBody.getOrDefault("stream", "false")));
+			RequestDeadline deadline = stages.start();
+			// Identical questions in flight share one token stream, whichever way it is returned
+			return Mono.fromCallable(() -> coalescer.stream(message, () -> tokens(retrieve(message, deadline), deadline)))
+				.subscribeOn(blocking)
+				.flatMap(tokens -> stream ? streamResponse(tokens) : callResponse(tokens))
+				.onErrorResume(ConcurrencyLimitExceededException.class, this::limitExceeded)
+				.onErrorResume(DeadlineExceededException.class, this::deadlineExceeded);
+		});
+	}
+
+	Mono<ServerResponse> search(ServerRequest request) {
+		String query = request.queryParam("message").orElse("Tell me a joke");
+		int topK = request.queryParam("topk").map(Integer::parseInt).orElse(5);
+		return Mono.fromCallable(() -> {
+			float[] embedding = rag.embed(query);
+			return RagPipeline.searchResults(rag.search(query, embedding, topK));
+		}).subscribeOn(blocking).flatMap(results -> ServerResponse.ok().bodyValue(results));
+	}
+
+	private Retrieval retrieve(String message, RequestDeadline deadline) {
+		float[] embedding = rag.embed(message, deadline);
+		List<Document> documents = rag.retrieve(message, embedding, deadline);
+		String cached = rag.cachedAnswer(embedding, documents).orElse(null);
+		Prompt prompt = cached == null ? rag.promptEngineering(message, documents) : null;
+		if (prompt != null) {
+			cached = rag.cachedCompletion(prompt).orElse(null);
+		}
+		return new Retrieval(message, embedding, documents, cached, prompt);
+	}
+
+	private Flux<String> tokens(Retrieval retrieval, RequestDeadline deadline) {
+		if (retrieval.cached() != null) {
+			return Flux.just(retrieval.cached());
+		}
+		// Taken now, while a rejection can still be answered with 429 or 503, and held until
+		// the subscription ends, however it ends
+		return completionsLimiter.acquireStream(blocking, permit -> {
+			long start = System.nanoTime();
+			StringBuilder answer = new StringBuilder();
+			return stages.within("generation", deadline, chatClient.prompt(retrieval.prompt()).stream().content())
+				.doOnNext(token -> {
+					permit.firstToken();
+					answer.append(token);
+				})
+				.doOnComplete(() -> metrics.record("llm", System.nanoTime() - start))
+				// Caching may write to the database: keep it off the event loop
+				.concatWith(Mono.<String>fromRunnable(() -> {
+					rag.cacheCompletion(retrieval.prompt(), answer.toString());
+					rag.cacheAnswer(retrieval.message(), retrieval.embedding(), retrieval.documents(), answer.toString());
+				}).subscribeOn(blocking));
+		});
+	}
+
+	private Mono<ServerResponse> limitExceeded(ConcurrencyLimitExceededException e) {
+		logger.warn("Request shed by " + e.getLimiter() + " limiter: " + e.getMessage());
+		return ServerResponse.status(e.getStatus())
+			.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+			.bodyValue(e.toErrorBody());
+	}
+
+	private Mono<ServerResponse> deadlineExceeded(DeadlineExceededException e) {
+		return ServerResponse.status(HttpStatus.GATEWAY_TIMEOUT).bodyValue(e.toErrorBody());
+	}
+
+	private Mono<ServerResponse> callResponse(Flux<String> tokens) {
+		return tokens.collect(Collectors.joining())
+			.flatMap(content -> ServerResponse.ok().bodyValue(RagPipeline.choices(content)))
+			.onErrorResume(DeadlineExceededException.class, this::deadlineExceeded)
+			.onErrorResume(e -> {
+				logger.error("Error while fetching completion", e);
+				return ServerResponse.ok().bodyValue(Map.of("error", "Failed to fetch completion"));
+			});
+	}
+
+	private Mono<ServerResponse> streamResponse(Flux<String> tokens) {
+		String id = "chatcmpl-" + UUID.randomUUID();
+		// WebFlux requests tokens as the client consumes them and unsubscribes on disconnect
+		Flux<ServerSentEvent<Object>> events = tokens
+			.map(token -> ServerSentEvent.builder((Object) RagPipeline.chunk(id, Map.of("content", token), null)).build())
+			.concatWith(Flux.just(ServerSentEvent.builder((Object) RagPipeline.chunk(id, Map.of(), "stop")).build(),
+					ServerSentEvent.builder((Object) "[DONE]").build()))
+			.onErrorResume(e -> {
+				logger.error("Error while streaming completion", e);
+				Object error = e instanceof DeadlineExceededException exceeded ? exceeded.toErrorBody()
+						: Map.of("error", "Failed to fetch completion");
+				return Flux.just(ServerSentEvent.builder(error).build());
+			});
+		return ServerResponse.ok()
+			.contentType(MediaType.TEXT_EVENT_STREAM)
+			.body(BodyInserters.fromServerSentEvents(events));
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.time.Duration;
+
+/**
+ * Time budget of one request, shared by its pipeline stages. Each stage gets the
+ * smaller of its own cap and what is left of the budget.
+ */
+class RequestDeadline {
+
+	private final long startNanos = System.nanoTime();
+
+	private final long deadlineNanos;
+
+	RequestDeadline(Duration budget) {
+		this.deadlineNanos = startNanos + budget.toNanos();
+	}
+
+	Duration remaining() {
+		return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+	}
+
+	Duration elapsed() {
+		return Duration.ofNanos(System.nanoTime() - startNanos);
+	}
+
+	Duration budget(Duration stageCap) {
+		Duration remaining = remaining();
+		return stageCap == null || stageCap.compareTo(remaining) > 0 ? remaining : stageCap;
+	}
+
+	DeadlineExceededException exceeded(String stage) {
+		return new DeadlineExceededException(stage, elapsed());
+	}
+
+}
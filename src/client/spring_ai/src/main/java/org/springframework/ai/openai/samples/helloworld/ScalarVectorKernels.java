@@ -0,0 +1,68 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+/**
+ * Plain loops, for JVMs without the Vector API. C2 does not vectorize these float
+ * sums (reordering them would change the result), so each one is a chain of adds.
+ */
+final class ScalarVectorKernels implements VectorKernels {
+
+	@Override
+	public float dot(float[] a, float[] b) {
+		float sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+	@Override
+	public float cosine(float[] a, float[] b) {
+		float dot = 0, normA = 0, normB = 0;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+			normA += a[i] * a[i];
+			normB += b[i] * b[i];
+		}
+		return normA == 0 || normB == 0 ? 0 : (float) (dot / Math.sqrt((double) normA * normB));
+	}
+
+	@Override
+	public float squaredEuclidean(float[] a, float[] b) {
+		float sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			float d = a[i] - b[i];
+			sum += d * d;
+		}
+		return sum;
+	}
+
+	@Override
+	public float dot(float[] a, byte[] b) {
+		float sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+	@Override
+	public float squaredEuclidean(float[] a, byte[] b, float scale) {
+		float sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			float d = a[i] - scale * b[i];
+			sum += d * d;
+		}
+		return sum;
+	}
+
+	@Override
+	public String toString() {
+		return "scalar";
+	}
+
+}
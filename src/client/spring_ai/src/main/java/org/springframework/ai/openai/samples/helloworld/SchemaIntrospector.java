@@ -0,0 +1,94 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Answers "exists / empty / how many rows" about tables in constant time, whatever
+ * their size: existence and row estimates come from the data dictionary statistics,
+ * emptiness from a single-row probe. Answers are cached for the application lifetime;
+ * callers that change a table invalidate its entry.
+ */
+@Component
+class SchemaIntrospector {
+
+	private static final Logger logger = LoggerFactory.getLogger(SchemaIntrospector.class);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final Map<String, Boolean> exists = new ConcurrentHashMap<>();
+
+	private final Map<String, Boolean> empty = new ConcurrentHashMap<>();
+
+	private final Map<String, Long> estimates = new ConcurrentHashMap<>();
+
+	private volatile String user;
+
+	SchemaIntrospector(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	String currentUser() {
+		if (user == null) {
+			user = jdbcTemplate.queryForObject("SELECT USER FROM DUAL", String.class);
+		}
+		return user;
+	}
+
+	boolean exists(String owner, String table) {
+		return exists.computeIfAbsent(key(owner, table), k -> {
+			logger.info("Checking if table exists: " + table + " in schema: " + owner);
+			// USER_TABLES avoids scanning the privileges behind ALL_TABLES for our own schema
+			List<Integer> found = owner.equalsIgnoreCase(currentUser())
+					? jdbcTemplate.queryForList("SELECT 1 FROM user_tables WHERE table_name = ?", Integer.class,
+							table.toUpperCase())
+					: jdbcTemplate.queryForList("SELECT 1 FROM all_tables WHERE owner = ? AND table_name = ?",
+							Integer.class, owner.toUpperCase(), table.toUpperCase());
+			return !found.isEmpty();
+		});
+	}
+
+	boolean isEmpty(String owner, String table) {
+		return empty.computeIfAbsent(key(owner, table), k -> {
+			logger.info("Checking if table is empty: " + table + " in schema: " + owner);
+			List<Integer> row = jdbcTemplate.queryForList(
+					"SELECT 1 FROM " + k + " FETCH FIRST 1 ROW ONLY", Integer.class);
+			return row.isEmpty();
+		});
+	}
+
+	/**
+	 * Row count from the optimizer statistics, -1 when the table has never been analyzed.
+	 */
+	long rowEstimate(String owner, String table) {
+		return estimates.computeIfAbsent(key(owner, table), k -> {
+			List<Long> rows = jdbcTemplate.queryForList(
+					"SELECT NUM_ROWS FROM all_tables WHERE owner = ? AND table_name = ?", Long.class,
+					owner.toUpperCase(), table.toUpperCase());
+			return rows.isEmpty() || rows.get(0) == null ? -1L : rows.get(0);
+		});
+	}
+
+	void invalidate(String owner, String table) {
+		String key = key(owner, table);
+		exists.remove(key);
+		empty.remove(key);
+		estimates.remove(key);
+	}
+
+	private static String key(String owner, String table) {
+		return owner.toUpperCase() + "." + table.toUpperCase();
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Optional cache of RAG answers, looked up by question embedding.
+ * An answer is reused when a new question is within aims.semantic_cache.max_distance
+ * (cosine) of a cached one and the vector search returned the same documents.
+ * Entries can be persisted in {@code <VECTOR_STORE>_SPRINGAI_ANSWERS} to survive restarts.
+ */
+@Component
+class SemanticAnswerCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(SemanticAnswerCache.class);
+
+	record Entry(String question, float[] embedding, List<String> docIds, String answer) {
+	}
+
+	@Value("${aims.semantic_cache.enabled:false}")
+	private boolean enabled;
+
+	@Value("${aims.semantic_cache.max_distance:0.05}")
+	private double maxDistance;
+
+	@Value("${aims.semantic_cache.max_entries:10000}")
+	private long maxEntries;
+
+	@Value("${aims.semantic_cache.ttl:24h}")
+	private Duration ttl;
+
+	@Value("${aims.semantic_cache.persist:false}")
+	private boolean persist;
+
+	@Value("${aims.vectortable.name}")
+	private String legacyTable;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final Counter hits;
+
+	private final Counter misses;
+
+	private Cache<String, Entry> cache;
+
+	private String table;
+
+	SemanticAnswerCache(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MeterRegistry registry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.objectMapper = objectMapper;
+		this.hits = registry.counter("aims.semantic_cache.requests", "result", "hit");
+		this.misses = registry.counter("aims.semantic_cache.requests", "result", "miss");
+	}
+
+	@PostConstruct
+	void init() {
+		cache = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl).build();
+		table = legacyTable + "_SPRINGAI_ANSWERS";
+		if (!enabled || !persist) {
+			return;
+		}
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+				+ "ID VARCHAR2(64) PRIMARY KEY, "
+				+ "QUESTION CLOB, "
+				+ "EMBEDDING VECTOR, "
+				+ "DOC_IDS CLOB, "
+				+ "ANSWER CLOB, "
+				+ "CREATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP)");
+		String sql = "SELECT ID, QUESTION, EMBEDDING, DOC_IDS, ANSWER FROM " + table
+				+ " WHERE CREATED_AT > SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND')"
+				+ " ORDER BY CREATED_AT DESC FETCH FIRST ? ROWS ONLY";
+		jdbcTemplate.query(sql, rs -> {
+			try {
+				List<String> docIds = objectMapper.readValue(rs.getString("DOC_IDS"), new TypeReference<List<String>>() {
+				});
+				cache.put(rs.getString("ID"), new Entry(rs.getString("QUESTION"),
+						rs.getObject("EMBEDDING", float[].class), docIds, rs.getString("ANSWER")));
+			} catch (JsonProcessingException e) {
+				logger.error("Skipping unreadable cached answer " + rs.getString("ID") + ": " + e.getMessage());
+			}
+		}, ttl.toSeconds(), maxEntries);
+		logger.info("Semantic answer cache loaded " + cache.estimatedSize() + " answers from " + table);
+	}
+
+	boolean isEnabled() {
+		return enabled;
+	}
+
+	Optional<Entry> lookup(float[] embedding, List<String> docIds) {
+		Entry best = null;
+		double bestDistance = maxDistance;
+		for (Entry entry : cache.asMap().values()) {
+			double distance = cosineDistance(embedding, entry.embedding());
+			if (distance <= bestDistance && new HashSet<>(entry.docIds()).equals(new HashSet<>(docIds))) {
+				best = entry;
+				bestDistance = distance;
+			}
+		}
+		if (best == null) {
+			misses.increment();
+			return Optional.empty();
+		}
+		hits.increment();
+		logger.info("Semantic cache hit at distance " + bestDistance + " for question: " + best.question());
+		return Optional.of(best);
+	}
+
+	void put(String question, float[] embedding, List<String> docIds, String answer) {
+		String id = key(question);
+		Entry entry = new Entry(question, embedding, docIds, answer);
+		cache.put(id, entry);
+		if (!persist) {
+			return;
+		}
+		try {
+			jdbcTemplate.update("MERGE INTO " + table + " t USING (SELECT ? ID FROM DUAL) s ON (t.ID = s.ID) "
+					+ "WHEN MATCHED THEN UPDATE SET t.EMBEDDING = TO_VECTOR(?), t.DOC_IDS = ?, t.ANSWER = ?, t.CREATED_AT = SYSTIMESTAMP "
+					+ "WHEN NOT MATCHED THEN INSERT (ID, QUESTION, EMBEDDING, DOC_IDS, ANSWER) VALUES (s.ID, ?, TO_VECTOR(?), ?, ?)",
+					id, toVectorLiteral(embedding), objectMapper.writeValueAsString(docIds), answer,
+					question, toVectorLiteral(embedding), objectMapper.writeValueAsString(docIds), answer);
+		} catch (Exception e) {
+			logger.error("Error persisting cached answer: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Answers were grounded in the old contents: drop them all.
+	 */
+	@EventListener
+	void onVectorTableChanged(VectorTableChangedEvent event) {
+		if (!enabled) {
+			return;
+		}
+		cache.invalidateAll();
+		if (persist) {
+			try {
+				jdbcTemplate.update("DELETE FROM " + table);
+			} catch (Exception e) {
+				logger.error("Error clearing persisted answers: " + e.getMessage());
+			}
+		}
+		logger.info("Semantic answer cache cleared: " + event.rowsChanged() + " rows of " + event.table() + " changed");
+	}
+
+	static double cosineDistance(float[] a, float[] b) {
+		if (a.length != b.length) {
+			return Double.MAX_VALUE;
+		}
+		return 1 - VectorKernels.INSTANCE.cosine(a, b);
+	}
+
+	static String toVectorLiteral(float[] vector) {
+		StringBuilder literal = new StringBuilder("[");
+		for (int i = 0; i < vector.length; i++) {
+			if (i > 0) {
+				literal.append(',');
+			}
+			literal.append(vector[i]);
+		}
+		return literal.append(']').toString();
+	}
+
+	private static String key(String question) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest(QueryEmbeddingCache.normalize(question).getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API loops over the widest vectors the CPU supports (SPECIES_PREFERRED: 8
+ * floats with AVX2, 16 with AVX-512, 4 with NEON). The float loops keep four
+ * independent accumulators so that the adds of consecutive vectors overlap. The int8
+ * loops widen each vector of bytes to floats (B2F) before multiplying. They use mul
+ * and add rather than fma, which is emulated, very slowly, on CPUs without FMA.
+ * The remainder of a vector shorter than a multiple of the lanes is summed in scalar.
+ */
+final class SimdVectorKernels implements VectorKernels {
+
+	private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+	// As many bytes as FLOATS has lanes, at least the 64-bit minimum shape
+	private static final VectorSpecies<Byte> BYTES = VectorSpecies.of(byte.class,
+			VectorShape.forBitSize(Math.max(64, FLOATS.length() * 8)));
+
+	// Float vectors per vector of bytes: 2 with 4 float lanes, else 1
+	private static final int PARTS = BYTES.length() / FLOATS.length();
+
+	private SimdVectorKernels() {
+	}
+
+	/**
+	 * Throws UnsupportedOperationException when SIMD would not help, and LinkageError
+	 * when jdk.incubator.vector was not added to the JVM.
+	 */
+	static VectorKernels create() {
+		if (FLOATS.length() < 4) {
+			throw new UnsupportedOperationException("no SIMD registers, preferred vector species " + FLOATS);
+		}
+		return new SimdVectorKernels();
+	}
+
+	@Override
+	public float dot(float[] a, float[] b) {
+		int lanes = FLOATS.length();
+		FloatVector sum0 = FloatVector.zero(FLOATS);
+		FloatVector sum1 = FloatVector.zero(FLOATS);
+		FloatVector sum2 = FloatVector.zero(FLOATS);
+		FloatVector sum3 = FloatVector.zero(FLOATS);
+		int i = 0;
+		for (int bound = a.length - a.length % (4 * lanes); i < bound; i += 4 * lanes) {
+			sum0 = FloatVector.fromArray(FLOATS, a, i).mul(FloatVector.fromArray(FLOATS, b, i)).add(sum0);
+			sum1 = FloatVector.fromArray(FLOATS, a, i + lanes)
+					.mul(FloatVector.fromArray(FLOATS, b, i + lanes)).add(sum1);
+			sum2 = FloatVector.fromArray(FLOATS, a, i + 2 * lanes)
+					.mul(FloatVector.fromArray(FLOATS, b, i + 2 * lanes)).add(sum2);
+			sum3 = FloatVector.fromArray(FLOATS, a, i + 3 * lanes)
+					.mul(FloatVector.fromArray(FLOATS, b, i + 3 * lanes)).add(sum3);
+		}
+		for (int bound = FLOATS.loopBound(a.length); i < bound; i += lanes) {
+			sum0 = FloatVector.fromArray(FLOATS, a, i).mul(FloatVector.fromArray(FLOATS, b, i)).add(sum0);
+		}
+		float sum = sum0.add(sum1).add(sum2.add(sum3)).reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+	@Override
+	public float cosine(float[] a, float[] b) {
+		FloatVector dotSum = FloatVector.zero(FLOATS);
+		FloatVector normASum = FloatVector.zero(FLOATS);
+		FloatVector normBSum = FloatVector.zero(FLOATS);
+		int i = 0;
+		for (int bound = FLOATS.loopBound(a.length); i < bound; i += FLOATS.length()) {
+			FloatVector va = FloatVector.fromArray(FLOATS, a, i);
+			FloatVector vb = FloatVector.fromArray(FLOATS, b, i);
+			dotSum = va.mul(vb).add(dotSum);
+			normASum = va.mul(va).add(normASum);
+			normBSum = vb.mul(vb).add(normBSum);
+		}
+		float dot = dotSum.reduceLanes(VectorOperators.ADD);
+		float normA = normASum.reduceLanes(VectorOperators.ADD);
+		float normB = normBSum.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			dot += a[i] * b[i];
+			normA += a[i] * a[i];
+			normB += b[i] * b[i];
+		}
+		return normA == 0 || normB == 0 ? 0 : (float) (dot / Math.sqrt((double) normA * normB));
+	}
+
+	@Override
+	public float squaredEuclidean(float[] a, float[] b) {
+		int lanes = FLOATS.length();
+		FloatVector sum0 = FloatVector.zero(FLOATS);
+		FloatVector sum1 = FloatVector.zero(FLOATS);
+		FloatVector sum2 = FloatVector.zero(FLOATS);
+		FloatVector sum3 = FloatVector.zero(FLOATS);
+		int i = 0;
+		for (int bound = a.length - a.length % (4 * lanes); i < bound; i += 4 * lanes) {
+			FloatVector d0 = FloatVector.fromArray(FLOATS, a, i).sub(FloatVector.fromArray(FLOATS, b, i));
+			FloatVector d1 = FloatVector.fromArray(FLOATS, a, i + lanes)
+					.sub(FloatVector.fromArray(FLOATS, b, i + lanes));
+			FloatVector d2 = FloatVector.fromArray(FLOATS, a, i + 2 * lanes)
+					.sub(FloatVector.fromArray(FLOATS, b, i + 2 * lanes));
+			FloatVector d3 = FloatVector.fromArray(FLOATS, a, i + 3 * lanes)
+					.sub(FloatVector.fromArray(FLOATS, b, i + 3 * lanes));
+			sum0 = d0.mul(d0).add(sum0);
+			sum1 = d1.mul(d1).add(sum1);
+			sum2 = d2.mul(d2).add(sum2);
+			sum3 = d3.mul(d3).add(sum3);
+		}
+		for (int bound = FLOATS.loopBound(a.length); i < bound; i += lanes) {
+			FloatVector d = FloatVector.fromArray(FLOATS, a, i).sub(FloatVector.fromArray(FLOATS, b, i));
+			sum0 = d.mul(d).add(sum0);
+		}
+		float sum = sum0.add(sum1).add(sum2.add(sum3)).reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			float d = a[i] - b[i];
+			sum += d * d;
+		}
+		return sum;
+	}
+
+	@Override
+	public float dot(float[] a, byte[] b) {
+		FloatVector sum = FloatVector.zero(FLOATS);
+		int i = 0;
+		for (int bound = BYTES.loopBound(a.length); i < bound; i += BYTES.length()) {
+			ByteVector bytes = ByteVector.fromArray(BYTES, b, i);
+			for (int part = 0; part < PARTS; part++) {
+				FloatVector vb = (FloatVector) bytes.convertShape(VectorOperators.B2F, FLOATS, part);
+				sum = FloatVector.fromArray(FLOATS, a, i + part * FLOATS.length()).mul(vb).add(sum);
+			}
+		}
+		float result = sum.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			result += a[i] * b[i];
+		}
+		return result;
+	}
+
+	@Override
+	public float squaredEuclidean(float[] a, byte[] b, float scale) {
+		FloatVector sum = FloatVector.zero(FLOATS);
+		FloatVector scales = FloatVector.broadcast(FLOATS, scale);
+		int i = 0;
+		for (int bound = BYTES.loopBound(a.length); i < bound; i += BYTES.length()) {
+			ByteVector bytes = ByteVector.fromArray(BYTES, b, i);
+			for (int part = 0; part < PARTS; part++) {
+				FloatVector vb = (FloatVector) bytes.convertShape(VectorOperators.B2F, FLOATS, part);
+				FloatVector d = FloatVector.fromArray(FLOATS, a, i + part * FLOATS.length()).sub(vb.mul(scales));
+				sum = d.mul(d).add(sum);
+			}
+		}
+		float result = sum.reduceLanes(VectorOperators.ADD);
+		for (; i < a.length; i++) {
+			float d = a[i] - scale * b[i];
+			result += d * d;
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "SIMD, " + FLOATS.length() + " float lanes";
+	}
+
+}
@@ -0,0 +1,232 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs the RAG stages within the request deadline. Each stage gets at most its
+ * aims.deadline.&lt;stage&gt; cap out of the aims.deadline.total budget. Idempotent stages
+ * (embedding, search) may be hedged: if the call is still running once the stage's
+ * recent latency percentile has elapsed, a duplicate is started and the first answer wins.
+ * That percentile is over the latencies recorded with measure(), around the provider or
+ * database call only: cache hits would drag it down and fire hedges on every miss.
+ */
+@Component
+class StageExecutor {
+
+	private static final Logger logger = LoggerFactory.getLogger(StageExecutor.class);
+
+	private static final int WINDOW = 256;
+
+	/**
+	 * Last WINDOW latencies of a stage, for the hedging threshold.
+	 */
+	private static final class LatencyWindow {
+
+		private final long[] samples = new long[WINDOW];
+
+		private int count;
+
+		synchronized void add(long nanos) {
+			samples[count++ % WINDOW] = nanos;
+		}
+
+		synchronized long percentile(double p, int minSamples) {
+			int size = Math.min(count, WINDOW);
+			if (size < minSamples) {
+				return -1;
+			}
+			long[] sorted = Arrays.copyOf(samples, size);
+			Arrays.sort(sorted);
+			return sorted[(int) Math.min(size - 1, Math.floor(p * size))];
+		}
+
+	}
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+	private final MeterRegistry registry;
+
+	@Value("${aims.deadline.total:120s}")
+	private Duration total;
+
+	@Value("${aims.deadline.embedding:10s}")
+	private Duration embeddingCap;
+
+	@Value("${aims.deadline.search:10s}")
+	private Duration searchCap;
+
+	@Value("${aims.hedging.enabled:false}")
+	private boolean hedging;
+
+	@Value("${aims.hedging.percentile:0.95}")
+	private double hedgePercentile;
+
+	@Value("${aims.hedging.min_delay:50ms}")
+	private Duration minHedgeDelay;
+
+	@Value("${aims.hedging.min_samples:20}")
+	private int minSamples;
+
+	StageExecutor(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@PreDestroy
+	void close() {
+		executor.shutdownNow();
+	}
+
+	RequestDeadline start() {
+		return new RequestDeadline(total);
+	}
+
+	/**
+	 * Runs a stage within its budget, hedging it when allowed.
+	 * Throws DeadlineExceededException when no attempt finished in time.
+	 */
+	<T> T run(String stage, RequestDeadline deadline, boolean idempotent, Supplier<T> call) {
+		Duration budget = deadline.budget(cap(stage));
+		if (budget.isZero()) {
+			throw exceeded(stage, deadline);
+		}
+		long budgetEnd = System.nanoTime() + budget.toNanos();
+		long hedgeDelay = idempotent && hedging ? hedgeDelay(stage) : -1;
+		ExecutorCompletionService<T> attempts = new ExecutorCompletionService<>(executor);
+		List<Future<T>> futures = new ArrayList<>();
+		futures.add(attempts.submit(call::get));
+		try {
+			int pending = 1;
+			boolean hedged = false;
+			RuntimeException failure = null;
+			while (pending > 0) {
+				long wait = budgetEnd - System.nanoTime();
+				if (!hedged && hedgeDelay >= 0) {
+					wait = Math.min(wait, hedgeDelay);
+				}
+				Future<T> done = wait > 0 ? attempts.poll(wait, TimeUnit.NANOSECONDS) : null;
+				if (done != null) {
+					pending--;
+					try {
+						T result = done.get();
+						if (hedged) {
+							hedgeCounter(stage, futures.indexOf(done) == 0 ? "primary_won" : "hedge_won").increment();
+						}
+						return result;
+					} catch (ExecutionException e) {
+						// Keep waiting if the other attempt is still running
+						failure = unwrap(e);
+					}
+				} else if (!hedged && hedgeDelay >= 0 && System.nanoTime() < budgetEnd) {
+					hedged = true;
+					pending++;
+					hedgeCounter(stage, "fired").increment();
+					futures.add(attempts.submit(call::get));
+				} else if (System.nanoTime() >= budgetEnd) {
+					throw exceeded(stage, deadline);
+				}
+			}
+			throw failure;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw exceeded(stage, deadline);
+		} finally {
+			futures.forEach(future -> future.cancel(true));
+		}
+	}
+
+	/**
+	 * Fails a token stream with DeadlineExceededException once the request deadline has passed.
+	 */
+	<T> Flux<T> within(String stage, RequestDeadline deadline, Flux<T> tokens) {
+		return tokens
+			.timeout(Mono.delay(deadline.budget(cap(stage))), token -> Mono.delay(deadline.budget(cap(stage))))
+			.onErrorMap(TimeoutException.class, e -> exceeded(stage, deadline));
+	}
+
+	/**
+	 * Runs the call that does the work of a stage, recording its latency for the hedging threshold.
+	 */
+	<T> T measure(String stage, Supplier<T> call) {
+		long start = System.nanoTime();
+		T result = call.get();
+		latencies.computeIfAbsent(stage, s -> new LatencyWindow()).add(System.nanoTime() - start);
+		return result;
+	}
+
+	private long hedgeDelay(String stage) {
+		LatencyWindow window = latencies.get(stage);
+		long threshold = window == null ? -1 : window.percentile(hedgePercentile, minSamples);
+		// Not enough history yet: don't hedge rather than guess
+		return threshold < 0 ? -1 : Math.max(threshold, minHedgeDelay.toNanos());
+	}
+
+	private Duration cap(String stage) {
+		return switch (stage) {
+			case "embedding" -> embeddingCap;
+			case "search" -> searchCap;
+			default -> null;
+		};
+	}
+
+	private DeadlineExceededException exceeded(String stage, RequestDeadline deadline) {
+		Counter.builder("aims.rag.deadline.exceeded")
+				.description("Requests that ran out of their deadline, by stage")
+				.tag("stage", stage)
+				.register(registry)
+				.increment();
+		DeadlineExceededException e = deadline.exceeded(stage);
+		logger.warn(e.getMessage());
+		return e;
+	}
+
+	private Counter hedgeCounter(String stage, String result) {
+		return Counter.builder("aims.rag.hedges")
+				.description("Hedged duplicates fired, and which attempt answered first")
+				.tag("stage", stage)
+				.tag("result", result)
+				.register(registry);
+	}
+
+	private static RuntimeException unwrap(ExecutionException e) {
+		if (e.getCause() instanceof RuntimeException cause) {
+			return cause;
+		}
+		if (e.getCause() instanceof Error error) {
+			throw error;
+		}
+		return new IllegalStateException(e.getCause());
+	}
+
+}
@@ -0,0 +1,402 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fixed-size vector records, by ordinal, in direct ByteBuffers outside the heap:
+ * the heap holds a few buffer objects, not a float[] per chunk, and the collector
+ * never scans or copies them. Buffers are added one chunk of records at a time.
+ *
+ * Encodings: FLOAT32, FLOAT16 (IEEE half precision) and INT8 (symmetric scalar
+ * quantization, one float scale per vector, then a signed byte per dimension).
+ * BINARY keeps one sign bit per dimension, packed in longs, for the Hamming prefilter of
+ * BinaryIndex; it always keeps the FLOAT32 copy, and its distances are those of the copy.
+ * A quantized arena can also keep a FLOAT32 copy of each vector, read only to rescore
+ * the best candidates exactly; scans touch the quantized records alone. Without it
+ * the arena is 2x (FLOAT16) or about 4x (INT8) smaller, and distances stay approximate.
+ * The distance methods copy a record into the arrays of the caller's VectorIndex.Scratch
+ * with one bulk get, decoding FLOAT16, and score it with the VectorKernels: the Vector
+ * API cannot load from a ByteBuffer in Java 21. They allocate nothing.
+ * An arena restored from a VectorSnapshot maps its full chunks read-only from the
+ * file instead of copying them; only the chunks appended later are allocated.
+ */
+class VectorArena {
+
+	enum Encoding {
+
+		FLOAT32, FLOAT16, INT8, BINARY;
+
+		static Encoding of(String encoding) {
+			return valueOf(encoding.trim().toUpperCase(Locale.ROOT));
+		}
+
+		int recordBytes(int dimensions) {
+			return switch (this) {
+				case FLOAT32 -> 4 * dimensions;
+				case FLOAT16 -> 2 * dimensions;
+				case INT8 -> 4 + dimensions;
+				case BINARY -> 8 * words(dimensions);
+			};
+		}
+
+	}
+
+	private static final int MAX_CHUNK_RECORDS = 16384;
+
+	private final int dimensions;
+
+	private final Encoding encoding;
+
+	private final int recordBytes;
+
+	private final int chunkRecords;
+
+	private final List<ByteBuffer> chunks = new ArrayList<>();
+
+	// FLOAT32 and FLOAT16 views of the chunks, for the bulk gets
+	private final List<FloatBuffer> floatChunks = new ArrayList<>();
+
+	private final List<ShortBuffer> halfChunks = new ArrayList<>();
+
+	private final VectorArena originals;
+
+	private final VectorKernels kernels = VectorKernels.INSTANCE;
+
+	private int size;
+
+	VectorArena(int dimensions, Encoding encoding) {
+		this(dimensions, encoding, true);
+	}
+
+	VectorArena(int dimensions, Encoding encoding, boolean keepOriginals) {
+		this(dimensions, encoding, originals(dimensions, encoding, keepOriginals));
+	}
+
+	private static VectorArena originals(int dimensions, Encoding encoding, boolean keepOriginals) {
+		if (encoding == Encoding.BINARY && !keepOriginals) {
+			throw new IllegalArgumentException("Binary vectors are only a prefilter, they need the float32 copy");
+		}
+		return encoding == Encoding.FLOAT32 || !keepOriginals ? null : new VectorArena(dimensions, Encoding.FLOAT32);
+	}
+
+	private VectorArena(int dimensions, Encoding encoding, VectorArena originals) {
+		this.dimensions = dimensions;
+		this.encoding = encoding;
+		this.recordBytes = encoding.recordBytes(dimensions);
+		this.chunkRecords = Math.max(1, Math.min(MAX_CHUNK_RECORDS, Integer.MAX_VALUE / recordBytes));
+		this.originals = originals;
+	}
+
+	/**
+	 * An arena over size records written by {@link #write} at offset in the file, with
+	 * the originals of a quantized arena, if kept. Full chunks stay mapped, read-only;
+	 * the last one is copied into a direct buffer so that the arena can grow.
+	 */
+	static VectorArena map(FileChannel file, long offset, int dimensions, Encoding encoding, int size,
+			VectorArena originals) throws IOException {
+		VectorArena arena = new VectorArena(dimensions, encoding, originals);
+		int chunkBytes = arena.chunkRecords * arena.recordBytes;
+		long position = offset;
+		while (arena.size < size) {
+			int records = Math.min(arena.chunkRecords, size - arena.size);
+			ByteBuffer chunk;
+			if (records == arena.chunkRecords) {
+				chunk = file.map(FileChannel.MapMode.READ_ONLY, position, chunkBytes);
+			} else {
+				chunk = ByteBuffer.allocateDirect(chunkBytes);
+				ByteBuffer tail = chunk.duplicate().limit(records * arena.recordBytes);
+				while (tail.hasRemaining()) {
+					if (file.read(tail, position + tail.position()) < 0) {
+						throw new IOException("Truncated vectors at offset " + position);
+					}
+				}
+			}
+			arena.addChunk(chunk);
+			arena.size += records;
+			position += (long) records * arena.recordBytes;
+		}
+		return arena;
+	}
+
+	int dimensions() {
+		return dimensions;
+	}
+
+	Encoding encoding() {
+		return encoding;
+	}
+
+	/**
+	 * Whether a FLOAT32 copy is kept to rescore the quantized distances.
+	 */
+	boolean rescores() {
+		return originals != null;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * The FLOAT32 copy of a quantized arena, null if not kept.
+	 */
+	VectorArena originals() {
+		return originals;
+	}
+
+	/**
+	 * Off-heap bytes allocated or mapped, the FLOAT32 copy of a quantized arena included.
+	 */
+	long bytes() {
+		return (long) chunks.size() * chunkRecords * recordBytes + (originals == null ? 0 : originals.bytes());
+	}
+
+	/**
+	 * Appends the vector, already prepared for the distance, and returns its ordinal.
+	 */
+	int add(float[] vector) {
+		if (vector.length != dimensions) {
+			throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+		}
+		if (size == chunks.size() * chunkRecords) {
+			addChunk(ByteBuffer.allocateDirect(chunkRecords * recordBytes));
+		}
+		ByteBuffer chunk = chunks.get(size / chunkRecords);
+		int offset = (size % chunkRecords) * recordBytes;
+		switch (encoding) {
+			case FLOAT32 -> floatChunks.get(size / chunkRecords).put(offset / 4, vector);
+			case FLOAT16 -> {
+				for (int i = 0; i < dimensions; i++) {
+					chunk.putShort(offset + 2 * i, Float.floatToFloat16(vector[i]));
+				}
+			}
+			case INT8 -> {
+				float max = 0;
+				for (float v : vector) {
+					max = Math.max(max, Math.abs(v));
+				}
+				float scale = max == 0 ? 1 : max / 127;
+				chunk.putFloat(offset, scale);
+				for (int i = 0; i < dimensions; i++) {
+					chunk.put(offset + 4 + i, (byte) Math.round(vector[i] / scale));
+				}
+			}
+			case BINARY -> {
+				long[] signs = signs(vector, new long[words(dimensions)]);
+				for (int w = 0; w < signs.length; w++) {
+					chunk.putLong(offset + 8 * w, signs[w]);
+				}
+			}
+		}
+		if (originals != null) {
+			originals.add(vector);
+		}
+		return size++;
+	}
+
+	/**
+	 * Distance from the query, prepared for the distance, to a stored vector, as encoded.
+	 */
+	float distance(VectorDistance distance, float[] query, int node) {
+		VectorIndex.Scratch s = VectorIndex.Scratch.borrow();
+		try {
+			return distance(distance, query, node, s);
+		} finally {
+			s.release();
+		}
+	}
+
+	float distance(VectorDistance distance, float[] query, int node, VectorIndex.Scratch s) {
+		if (encoding == Encoding.BINARY) {
+			return originals.distance(distance, query, node, s);
+		}
+		return distance == VectorDistance.EUCLIDEAN ? (float) Math.sqrt(squaredEuclidean(query, node, s))
+				: distance.fromDot(dot(query, node, s));
+	}
+
+	/**
+	 * Bits differing between the signs of a query, from {@link #signs}, and a BINARY record.
+	 */
+	int hamming(long[] signs, int node) {
+		ByteBuffer chunk = chunks.get(node / chunkRecords);
+		int offset = (node % chunkRecords) * recordBytes;
+		int bits = 0;
+		for (int w = 0; w < signs.length; w++) {
+			bits += Long.bitCount(signs[w] ^ chunk.getLong(offset + 8 * w));
+		}
+		return bits;
+	}
+
+	/**
+	 * One bit per dimension, set for the positive values, 64 dimensions per long.
+	 */
+	static long[] signs(float[] vector, long[] into) {
+		Arrays.fill(into, 0);
+		for (int i = 0; i < vector.length; i++) {
+			if (vector[i] > 0) {
+				into[i >>> 6] |= 1L << i;
+			}
+		}
+		return into;
+	}
+
+	static int words(int dimensions) {
+		return (dimensions + 63) / 64;
+	}
+
+	/**
+	 * Distance to the full-precision vector, when kept.
+	 */
+	float exactDistance(VectorDistance distance, float[] query, int node) {
+		return originals == null ? distance(distance, query, node) : originals.distance(distance, query, node);
+	}
+
+	float exactDistance(VectorDistance distance, float[] query, int node, VectorIndex.Scratch s) {
+		return (originals == null ? this : originals).distance(distance, query, node, s);
+	}
+
+	/**
+	 * The k nearest of s.candidates (a farthest-on-top queue, emptied): rescored
+	 * with the full-precision copy when kept, else as they are.
+	 */
+	List<VectorIndex.Neighbor> nearest(VectorDistance distance, float[] query, VectorIndex.Scratch s, int k) {
+		NeighborQueue candidates = s.candidates;
+		if (originals == null) {
+			while (candidates.size() > k) {
+				candidates.pop();
+			}
+			return candidates.drainNearestFirst();
+		}
+		NeighborQueue rescored = s.rescored;
+		rescored.clear();
+		while (!candidates.isEmpty()) {
+			int node = candidates.topNode();
+			candidates.pop();
+			rescored.offer(node, originals.distance(distance, query, node, s), k);
+		}
+		return rescored.drainNearestFirst();
+	}
+
+	/**
+	 * Bytes written by {@link #write}.
+	 */
+	long recordsBytes() {
+		return (long) size * recordBytes;
+	}
+
+	/**
+	 * Writes the records as stored, in native byte order, without the originals.
+	 */
+	void write(OutputStream out) throws IOException {
+		byte[] buffer = new byte[64 * 1024];
+		for (int c = 0; c < chunks.size(); c++) {
+			ByteBuffer chunk = chunks.get(c).duplicate();
+			chunk.limit(Math.min(chunkRecords, size - c * chunkRecords) * recordBytes);
+			while (chunk.hasRemaining()) {
+				int length = Math.min(buffer.length, chunk.remaining());
+				chunk.get(buffer, 0, length);
+				out.write(buffer, 0, length);
+			}
+		}
+	}
+
+	/**
+	 * Decodes a stored vector, from the full-precision copy when kept.
+	 */
+	void read(int node, float[] into) {
+		VectorIndex.Scratch s = VectorIndex.Scratch.borrow();
+		try {
+			read(node, into, s);
+		} finally {
+			s.release();
+		}
+	}
+
+	void read(int node, float[] into, VectorIndex.Scratch s) {
+		if (originals != null) {
+			originals.read(node, into, s);
+			return;
+		}
+		if (encoding == Encoding.INT8) {
+			byte[] bytes = s.bytes(dimensions);
+			float scale = int8(node, bytes);
+			for (int i = 0; i < dimensions; i++) {
+				into[i] = scale * bytes[i];
+			}
+		} else {
+			decode(node, into, s);
+		}
+	}
+
+	private void addChunk(ByteBuffer chunk) {
+		chunk.order(ByteOrder.nativeOrder());
+		chunks.add(chunk);
+		if (encoding == Encoding.FLOAT32) {
+			floatChunks.add(chunk.asFloatBuffer());
+		} else if (encoding == Encoding.FLOAT16) {
+			halfChunks.add(chunk.asShortBuffer());
+		}
+	}
+
+	private float dot(float[] query, int node, VectorIndex.Scratch s) {
+		if (encoding == Encoding.INT8) {
+			byte[] bytes = s.bytes(dimensions);
+			float scale = int8(node, bytes);
+			return scale * kernels.dot(query, bytes);
+		}
+		return kernels.dot(query, decode(node, s.floats(dimensions), s));
+	}
+
+	private float squaredEuclidean(float[] query, int node, VectorIndex.Scratch s) {
+		if (encoding == Encoding.INT8) {
+			byte[] bytes = s.bytes(dimensions);
+			float scale = int8(node, bytes);
+			return kernels.squaredEuclidean(query, bytes, scale);
+		}
+		return kernels.squaredEuclidean(query, decode(node, s.floats(dimensions), s));
+	}
+
+	/**
+	 * Copies a FLOAT32 or FLOAT16 record into the array, as floats.
+	 */
+	private float[] decode(int node, float[] into, VectorIndex.Scratch s) {
+		int chunk = node / chunkRecords;
+		int offset = (node % chunkRecords) * recordBytes;
+		if (encoding == Encoding.FLOAT32) {
+			floatChunks.get(chunk).get(offset / 4, into, 0, dimensions);
+		} else {
+			short[] halves = s.halves(dimensions);
+			halfChunks.get(chunk).get(offset / 2, halves, 0, dimensions);
+			for (int i = 0; i < dimensions; i++) {
+				into[i] = Float.float16ToFloat(halves[i]);
+			}
+		}
+		return into;
+	}
+
+	/**
+	 * Copies the bytes of an INT8 record and returns its scale.
+	 */
+	private float int8(int node, byte[] into) {
+		ByteBuffer chunk = chunks.get(node / chunkRecords);
+		int offset = (node % chunkRecords) * recordBytes;
+		chunk.get(offset + 4, into, 0, dimensions);
+		return chunk.getFloat(offset);
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.util.Locale;
+
+/**
+ * The DISTANCE_TYPE values the in-process search supports, with the same values as
+ * Oracle's VECTOR_DISTANCE: COSINE is 1 - cosine similarity, DOT the negated dot
+ * product and EUCLIDEAN the L2 distance. Vectors go through {@link #prepare} once
+ * when stored or queried; for COSINE that normalizes them, so a distance is a single dot product.
+ */
+enum VectorDistance {
+
+	COSINE, DOT, EUCLIDEAN;
+
+	static VectorDistance of(String distanceType) {
+		try {
+			return valueOf(distanceType.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Distance type " + distanceType
+					+ " is not supported by the local vector store, use COSINE, DOT or EUCLIDEAN");
+		}
+	}
+
+	/**
+	 * Copy of the vector in the form {@link #distance} expects.
+	 */
+	float[] prepare(float[] vector) {
+		return prepare(vector, new float[vector.length]);
+	}
+
+	/**
+	 * Prepares the vector into a caller-owned array, so a search allocates nothing.
+	 */
+	float[] prepare(float[] vector, float[] prepared) {
+		System.arraycopy(vector, 0, prepared, 0, vector.length);
+		if (this == COSINE) {
+			float norm = VectorKernels.INSTANCE.dot(prepared, prepared);
+			if (norm > 0) {
+				float scale = (float) (1 / Math.sqrt(norm));
+				for (int i = 0; i < prepared.length; i++) {
+					prepared[i] *= scale;
+				}
+			}
+		}
+		return prepared;
+	}
+
+	float distance(float[] a, float[] b) {
+		return switch (this) {
+			case COSINE -> 1 - dot(a, b);
+			case DOT -> -dot(a, b);
+			case EUCLIDEAN -> (float) Math.sqrt(squaredEuclidean(a, b));
+		};
+	}
+
+	/**
+	 * Distance for a dot product of prepared vectors: COSINE and DOT only.
+	 */
+	float fromDot(float dot) {
+		return this == COSINE ? 1 - dot : -dot;
+	}
+
+	/**
+	 * Document score, higher is more similar, as compared with SearchRequest.similarityThreshold.
+	 */
+	double similarity(float distance) {
+		return switch (this) {
+			case COSINE -> 1 - distance;
+			case DOT -> -distance;
+			case EUCLIDEAN -> 1 / (1 + distance);
+		};
+	}
+
+	static float dot(float[] a, float[] b) {
+		return VectorKernels.INSTANCE.dot(a, b);
+	}
+
+	static float squaredEuclidean(float[] a, float[] b) {
+		return VectorKernels.INSTANCE.squaredEuclidean(a, b);
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process nearest neighbour index over the vectors of a VectorArena, by ordinal.
+ * Removed nodes are only marked deleted and left out of the results.
+ * Implementations are not thread-safe for writes: LocalVectorStore serializes
+ * insertions against searches.
+ */
+interface VectorIndex {
+
+	record Neighbor(int node, float distance) {
+	}
+
+	/**
+	 * Inserts the vector and returns its ordinal.
+	 */
+	int add(float[] vector);
+
+	void remove(int node);
+
+	boolean isDeleted(int node);
+
+	/**
+	 * Nodes inserted, deleted ones included.
+	 */
+	default int nodes() {
+		return arena().size();
+	}
+
+	default int size() {
+		return nodes() - deletedCount();
+	}
+
+	int deletedCount();
+
+	VectorArena arena();
+
+	VectorDistance distance();
+
+	/**
+	 * The k nearest live nodes, nearest first, rescored with the full-precision
+	 * vectors when the arena keeps them.
+	 */
+	List<Neighbor> search(float[] query, int k);
+
+	/**
+	 * Exact k nearest live nodes by brute force over the full-precision vectors
+	 * (the quantized ones when the arena does not keep them), to measure the recall
+	 * of {@link #search}.
+	 */
+	default List<Neighbor> exactSearch(float[] query, int k) {
+		float[] prepared = distance().prepare(query);
+		NeighborQueue nearest = new NeighborQueue(k + 1, true);
+		Scratch s = Scratch.borrow();
+		try {
+			for (int node = 0; node < nodes(); node++) {
+				if (!isDeleted(node)) {
+					nearest.offer(node, arena().exactDistance(distance(), prepared, node, s), k);
+				}
+			}
+		} finally {
+			s.release();
+		}
+		return nearest.drainNearestFirst();
+	}
+
+	/**
+	 * Writes the index structure beyond the vectors and deletions, for a VectorSnapshot.
+	 */
+	default void writeGraph(DataOutput out) throws IOException {
+	}
+
+	/**
+	 * Restores what {@link #writeGraph} wrote, over an arena holding the same nodes.
+	 */
+	default void readGraph(DataInput in) throws IOException {
+	}
+
+	/**
+	 * Search state, borrowed for one search or insertion and given back after it.
+	 * Searches run on a new virtual thread each (StageExecutor), so the state is pooled
+	 * across the indexes rather than per thread: the visits array is as long as the
+	 * largest index searched. The pool keeps a few per core; beyond that a burst
+	 * allocates and the extra ones are dropped on release.
+	 */
+	final class Scratch {
+
+		private static final BlockingQueue<Scratch> POOL = new ArrayBlockingQueue<>(
+				2 * Runtime.getRuntime().availableProcessors());
+
+		private static final AtomicInteger CREATED = new AtomicInteger();
+
+		final NeighborQueue candidates = new NeighborQueue(256, true);
+
+		final NeighborQueue rescored = new NeighborQueue(16, true);
+
+		final NeighborQueue frontier = new NeighborQueue(256, false);
+
+		private float[] query = new float[0];
+
+		private long[] signs = new long[0];
+
+		private int[] visits = new int[0];
+
+		private int generation;
+
+		// Records copied out of a VectorArena, by encoding
+		private float[] floats = new float[0];
+
+		private short[] halves = new short[0];
+
+		private byte[] bytes = new byte[0];
+
+		private Scratch() {
+			CREATED.incrementAndGet();
+		}
+
+		static Scratch borrow() {
+			Scratch s = POOL.poll();
+			return s == null ? new Scratch() : s;
+		}
+
+		/**
+		 * Gives it back to the pool; the caller must not use it afterwards.
+		 */
+		void release() {
+			POOL.offer(this);
+		}
+
+		/**
+		 * Scratches allocated so far, to check the pool in tests.
+		 */
+		static int created() {
+			return CREATED.get();
+		}
+
+		float[] query(int dimensions) {
+			if (query.length != dimensions) {
+				query = new float[dimensions];
+			}
+			return query;
+		}
+
+		long[] signs(int words) {
+			if (signs.length != words) {
+				signs = new long[words];
+			}
+			return signs;
+		}
+
+		float[] floats(int dimensions) {
+			if (floats.length != dimensions) {
+				floats = new float[dimensions];
+			}
+			return floats;
+		}
+
+		short[] halves(int dimensions) {
+			if (halves.length != dimensions) {
+				halves = new short[dimensions];
+			}
+			return halves;
+		}
+
+		byte[] bytes(int dimensions) {
+			if (bytes.length != dimensions) {
+				bytes = new byte[dimensions];
+			}
+			return bytes;
+		}
+
+		/**
+		 * Forgets the visited nodes in O(1) by bumping the generation.
+		 */
+		void resetVisits(int nodes) {
+			if (visits.length < nodes) {
+				visits = new int[Math.max(nodes, visits.length * 2)];
+				generation = 0;
+			}
+			if (++generation == Integer.MAX_VALUE) {
+				Arrays.fill(visits, 0);
+				generation = 1;
+			}
+		}
+
+		/**
+		 * Marks the node, false if it was already visited.
+		 */
+		boolean visit(int node) {
+			if (visits[node] == generation) {
+				return false;
+			}
+			visits[node] = generation;
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The similarity loops of the in-process scoring: dot product, cosine and squared L2
+ * distance over float vectors, and over int8 vectors (one scale per vector) against a
+ * float query. These cover the three DISTANCE_TYPE values: for COSINE the vectors are
+ * normalized once, and the distance is then a dot product.
+ *
+ * {@link #INSTANCE} is picked once, at class initialization: SimdVectorKernels when
+ * the JVM was started with --add-modules jdk.incubator.vector and the CPU has vector
+ * registers of at least 128 bits, else ScalarVectorKernels, with a warning: the scalar
+ * loops are several times slower. -Daims.vector_kernels=scalar forces them.
+ */
+interface VectorKernels {
+
+	VectorKernels INSTANCE = select();
+
+	float dot(float[] a, float[] b);
+
+	/**
+	 * Cosine similarity of vectors that are not normalized, 0 if either is zero.
+	 */
+	float cosine(float[] a, float[] b);
+
+	float squaredEuclidean(float[] a, float[] b);
+
+	/**
+	 * Dot product with an int8 vector, before applying its scale.
+	 */
+	float dot(float[] a, byte[] b);
+
+	/**
+	 * Squared L2 distance to the int8 vector b times its scale.
+	 */
+	float squaredEuclidean(float[] a, byte[] b, float scale);
+
+	private static VectorKernels select() {
+		Logger logger = LoggerFactory.getLogger(VectorKernels.class);
+		if ("scalar".equalsIgnoreCase(System.getProperty("aims.vector_kernels"))) {
+			VectorKernels kernels = new ScalarVectorKernels();
+			logger.info("Vector kernels: " + kernels + " (-Daims.vector_kernels=scalar)");
+			return kernels;
+		}
+		String reason;
+		try {
+			VectorKernels kernels = SimdVectorKernels.create();
+			logger.info("Vector kernels: " + kernels + " (jdk.incubator.vector)");
+			return kernels;
+		} catch (LinkageError e) {
+			reason = "start the JVM with --add-modules jdk.incubator.vector, e.g. in JDK_JAVA_OPTIONS, for SIMD";
+		} catch (UnsupportedOperationException e) {
+			reason = e.getMessage();
+		}
+		VectorKernels kernels = new ScalarVectorKernels();
+		logger.warn("Vector kernels: falling back to " + kernels + " (" + reason + ")");
+		return kernels;
+	}
+
+}
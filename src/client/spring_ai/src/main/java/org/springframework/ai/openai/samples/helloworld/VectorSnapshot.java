@@ -0,0 +1,299 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk image of the local index, so that a replica can start searching from a
+ * file instead of reading every EMBEDDING over JDBC, then catch up from its watermark.
+ *
+ * Layout, big-endian except for the vector records:
+ * magic, version, CRC32C of everything after the prefix, total length (the prefix);
+ * the header length and header (the Spec, dimensions, nodes, watermark, byte order);
+ * the arena records, then the originals of a quantized arena, each page-aligned and
+ * in native byte order, as VectorArena stores them, so they are mapped as they are;
+ * the deleted nodes, the document IDs by ordinal, and the graph of the index.
+ * The text and metadata stay in the table.
+ * A file written for another table, index configuration or byte order is rejected,
+ * as is a truncated or corrupt one: the caller then loads from the table.
+ */
+final class VectorSnapshot {
+
+	private static final int MAGIC = 0x41495653; // AIVS
+
+	private static final int VERSION = 2;
+
+	private static final int PREFIX_BYTES = 20;
+
+	private static final int PAGE = 4096;
+
+	/**
+	 * What the index was built with: a snapshot is only restored by the same configuration.
+	 */
+	record Spec(String table, String index, VectorDistance distance, VectorArena.Encoding encoding,
+			boolean originals, int m) {
+	}
+
+	/**
+	 * The index, its document IDs by ordinal (null for deleted nodes) and the highest
+	 * ORA_ROWSCN it has read.
+	 */
+	record Contents(VectorIndex index, List<String> ids, long watermark) {
+	}
+
+	private VectorSnapshot() {
+	}
+
+	/**
+	 * Writes the snapshot next to the path, then moves it over the previous one, so that
+	 * a replica reading or mapping the file never sees it half-written. Returns its size.
+	 */
+	static long write(Path path, Spec spec, Contents contents) throws IOException {
+		VectorIndex index = contents.index();
+		VectorArena arena = index.arena();
+		Path temporary = path.resolveSibling(path.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+		try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			file.write(ByteBuffer.allocate(PREFIX_BYTES));
+			Checksummed checksummed = new Checksummed(Channels.newOutputStream(file), PREFIX_BYTES);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checksummed, 1 << 16));
+
+			ByteArrayOutputStream header = new ByteArrayOutputStream();
+			DataOutputStream headerOut = new DataOutputStream(header);
+			writeString(headerOut, spec.table());
+			writeString(headerOut, spec.index());
+			writeString(headerOut, spec.distance().name());
+			writeString(headerOut, spec.encoding().name());
+			headerOut.writeBoolean(spec.originals());
+			headerOut.writeInt(spec.m());
+			headerOut.writeInt(arena.dimensions());
+			headerOut.writeInt(arena.size());
+			headerOut.writeLong(contents.watermark());
+			headerOut.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+			out.writeInt(header.size());
+			header.writeTo(out);
+
+			align(out, checksummed);
+			arena.write(out);
+			if (spec.originals()) {
+				align(out, checksummed);
+				arena.originals().write(out);
+			}
+
+			long[] deleted = deletedNodes(index).toLongArray();
+			out.writeInt(deleted.length);
+			for (long word : deleted) {
+				out.writeLong(word);
+			}
+			for (String id : contents.ids()) {
+				writeString(out, id);
+			}
+			index.writeGraph(out);
+			out.flush();
+
+			ByteBuffer prefix = ByteBuffer.allocate(PREFIX_BYTES);
+			prefix.putInt(MAGIC).putInt(VERSION).putInt((int) checksummed.crc.getValue()).putLong(checksummed.position);
+			file.write(prefix.flip(), 0);
+			file.force(true);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return Files.size(path);
+	}
+
+	/**
+	 * Verifies the checksum, maps the vectors and reads the rest onto the heap. The index
+	 * comes from the factory, over the mapped arena, with the graph and deletions restored.
+	 */
+	static Contents read(Path path, Spec spec, Function<VectorArena, VectorIndex> indexFactory) throws IOException {
+		try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer prefix = ByteBuffer.allocate(PREFIX_BYTES);
+			readFully(file, prefix, 0);
+			prefix.flip();
+			if (prefix.getInt() != MAGIC) {
+				throw new IOException(path + " is not a vector snapshot");
+			}
+			int version = prefix.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported snapshot version " + version + ", expected " + VERSION);
+			}
+			int crc = prefix.getInt();
+			long length = prefix.getLong();
+			if (length != file.size()) {
+				throw new IOException("Snapshot is " + file.size() + " bytes, " + length + " expected");
+			}
+			if (crc != checksum(file, PREFIX_BYTES, length)) {
+				throw new IOException("Snapshot checksum mismatch");
+			}
+
+			file.position(PREFIX_BYTES);
+			DataInputStream in = input(file);
+			int headerBytes = in.readInt();
+			Spec found = new Spec(readString(in), readString(in), VectorDistance.valueOf(readString(in)),
+					VectorArena.Encoding.valueOf(readString(in)), in.readBoolean(), in.readInt());
+			if (!found.equals(spec)) {
+				throw new IOException("Snapshot was written for " + found + ", not " + spec);
+			}
+			int dimensions = in.readInt();
+			int nodes = in.readInt();
+			long watermark = in.readLong();
+			boolean littleEndian = in.readBoolean();
+			if (littleEndian != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)) {
+				throw new IOException("Snapshot was written with another byte order");
+			}
+
+			long offset = align(PREFIX_BYTES + 4 + headerBytes);
+			long quantizedBytes = (long) nodes * spec.encoding().recordBytes(dimensions);
+			VectorArena originals = null;
+			long end = offset + quantizedBytes;
+			if (spec.originals()) {
+				long originalsOffset = align(end);
+				originals = VectorArena.map(file, originalsOffset, dimensions, VectorArena.Encoding.FLOAT32, nodes,
+						null);
+				end = originalsOffset + originals.recordsBytes();
+			}
+			VectorArena arena = VectorArena.map(file, offset, dimensions, spec.encoding(), nodes, originals);
+			VectorIndex index = indexFactory.apply(arena);
+
+			file.position(end);
+			in = input(file);
+			long[] words = new long[in.readInt()];
+			for (int i = 0; i < words.length; i++) {
+				words[i] = in.readLong();
+			}
+			BitSet deleted = BitSet.valueOf(words);
+			for (int node = deleted.nextSetBit(0); node >= 0; node = deleted.nextSetBit(node + 1)) {
+				index.remove(node);
+			}
+			List<String> ids = new ArrayList<>(nodes);
+			for (int node = 0; node < nodes; node++) {
+				ids.add(readString(in));
+			}
+			index.readGraph(in);
+			return new Contents(index, ids, watermark);
+		}
+	}
+
+	private static BitSet deletedNodes(VectorIndex index) {
+		BitSet deleted = new BitSet();
+		for (int node = 0; node < index.nodes(); node++) {
+			if (index.isDeleted(node)) {
+				deleted.set(node);
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * CRC32C of the file from start to end, read through mappings of up to 1 GB.
+	 */
+	private static int checksum(FileChannel file, long start, long end) throws IOException {
+		CRC32C crc = new CRC32C();
+		for (long position = start; position < end; position += 1 << 30) {
+			crc.update(file.map(FileChannel.MapMode.READ_ONLY, position, Math.min(1 << 30, end - position)));
+		}
+		return (int) crc.getValue();
+	}
+
+	private static DataInputStream input(FileChannel file) {
+		return new DataInputStream(new BufferedInputStream(Channels.newInputStream(file), 1 << 16));
+	}
+
+	private static void readFully(FileChannel file, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (file.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Truncated snapshot");
+			}
+		}
+	}
+
+	private static long align(long position) {
+		return (position + PAGE - 1) / PAGE * PAGE;
+	}
+
+	private static void align(DataOutputStream out, Checksummed checksummed) throws IOException {
+		out.flush();
+		out.write(new byte[(int) (align(checksummed.position) - checksummed.position)]);
+	}
+
+	/**
+	 * Length-prefixed UTF-8, -1 for null: unlike writeUTF, not limited to 64 KB.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Checksums what goes through it and counts the file position.
+	 */
+	private static final class Checksummed extends FilterOutputStream {
+
+		private final CRC32C crc = new CRC32C();
+
+		private long position;
+
+		Checksummed(OutputStream out, long position) {
+			super(out);
+			this.position = position;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			crc.update(b);
+			position++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			crc.update(b, off, len);
+			position += len;
+		}
+
+	}
+
+}
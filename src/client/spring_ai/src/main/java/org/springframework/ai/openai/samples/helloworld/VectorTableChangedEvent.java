@@ -0,0 +1,13 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+/**
+ * Published when rows of the vector table were copied, merged, inserted or deleted,
+ * so that whatever was derived from its contents can be dropped.
+ */
+record VectorTableChangedEvent(String table, long rowsChanged) {
+}
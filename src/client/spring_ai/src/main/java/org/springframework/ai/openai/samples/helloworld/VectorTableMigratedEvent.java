@@ -0,0 +1,13 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+/**
+ * Published once VectorTableMigration completed, whether it copied rows or found the
+ * table already copied or served in place: the table can be read from now on.
+ */
+record VectorTableMigratedEvent(String table) {
+}
@@ -0,0 +1,366 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Copies the AI Explorer vector table into {@code <VECTOR_STORE>_SPRINGAI} in the
+ * background once the application has started.
+ * The source is split in ID ranges recorded in {@code <VECTOR_STORE>_SPRINGAI_MIGRATION};
+ * each range is copied and checkpointed in its own transaction by a pool of workers,
+ * so an interrupted copy resumes from the chunks still pending.
+ * Replicas starting together share the work: a worker first claims its chunk by
+ * setting OWNER, and a claim left by a replica that died is taken over after claim_timeout.
+ * Until the copy is done this indicator is not UP: it is part of the readiness
+ * health group only, so the pod stays alive but receives no traffic.
+ * A failed copy is retried with a growing delay.
+ */
+@Component
+class VectorTableMigration implements HealthIndicator {
+
+	private static final Logger logger = LoggerFactory.getLogger(VectorTableMigration.class);
+
+	private static final Duration CLAIM_POLL = Duration.ofSeconds(5);
+
+	enum State {
+		PENDING, RUNNING, COMPLETED, RETRYING, FAILED
+	}
+
+	@Value("${aims.vectortable.name}")
+	private String legacyTable;
+
+	@Value("${aims.vectortable.mode:copy}")
+	private String mode;
+
+	@Value("${aims.vectortable.chunk_size:10000}")
+	private int chunkSize;
+
+	@Value("${aims.vectortable.parallel_degree:4}")
+	private int parallelDegree;
+
+	@Value("${aims.vectortable.migration.retry_delay:30s}")
+	private Duration retryDelay;
+
+	@Value("${aims.vectortable.migration.max_attempts:10}")
+	private int maxAttempts;
+
+	@Value("${aims.vectortable.migration.claim_timeout:10m}")
+	private Duration claimTimeout;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final SchemaIntrospector schema;
+
+	private final TaskScheduler taskScheduler;
+
+	private final PlatformTransactionManager transactionManager;
+
+	private final ApplicationEventPublisher events;
+
+	private final AtomicLong rowsCopied = new AtomicLong();
+
+	private final AtomicLong rowsTotal = new AtomicLong(-1);
+
+	private final AtomicInteger attempts = new AtomicInteger();
+
+	// Owner of the chunks claimed by this replica: the pod name where there is one
+	private final String instance = System.getenv().getOrDefault("HOSTNAME", "local") + "-"
+			+ UUID.randomUUID().toString().substring(0, 8);
+
+	private volatile State state = State.PENDING;
+
+	private volatile Instant startedAt;
+
+	private volatile String lastError;
+
+	private volatile String sourceTable;
+
+	private volatile String targetTable;
+
+	VectorTableMigration(JdbcTemplate jdbcTemplate, SchemaIntrospector schema, TaskScheduler taskScheduler,
+			PlatformTransactionManager transactionManager, ApplicationEventPublisher events, MeterRegistry registry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.schema = schema;
+		this.taskScheduler = taskScheduler;
+		this.transactionManager = transactionManager;
+		this.events = events;
+		Gauge.builder("aims.vectortable.migration.rows.copied", rowsCopied, AtomicLong::get).register(registry);
+		Gauge.builder("aims.vectortable.migration.rows.total", rowsTotal, AtomicLong::get).register(registry);
+		Gauge.builder("aims.vectortable.migration.rate", this, VectorTableMigration::rowsPerSecond)
+				.baseUnit("rows/s")
+				.register(registry);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	void start() {
+		taskScheduler.schedule(this::run, Instant.now());
+	}
+
+	boolean isCompleted() {
+		return state == State.COMPLETED;
+	}
+
+	String getSourceTable() {
+		return sourceTable;
+	}
+
+	String getTargetTable() {
+		return targetTable;
+	}
+
+	void run() {
+		int attempt = attempts.incrementAndGet();
+		state = State.RUNNING;
+		startedAt = Instant.now();
+		try {
+			insertData();
+			state = State.COMPLETED;
+			lastError = null;
+			if (rowsCopied.get() > 0) {
+				events.publishEvent(new VectorTableChangedEvent(targetTable, rowsCopied.get()));
+			}
+			events.publishEvent(new VectorTableMigratedEvent(targetTable));
+		} catch (Exception e) {
+			lastError = e.getMessage();
+			logger.error("Vector table copy failed (attempt " + attempt + "): " + e.getMessage());
+			if (attempt < maxAttempts) {
+				state = State.RETRYING;
+				Duration delay = retryDelay.multipliedBy(attempt);
+				logger.info("Retrying vector table copy in " + delay);
+				taskScheduler.schedule(this::run, Instant.now().plus(delay));
+			} else {
+				state = State.FAILED;
+			}
+		}
+	}
+
+	/**
+	 * Resolves the AI Explorer table: in the user's schema when running locally,
+	 * in ADMIN on OBaaS.
+	 */
+	String resolveSourceTable() {
+		String user = schema.currentUser();
+		if (schema.exists(user, legacyTable)) {
+			// RUNNING LOCAL
+			logger.info("Running local with user: " + user);
+			sourceTable = user + "." + legacyTable;
+		} else {
+			// RUNNING in OBAAS
+			logger.info("Running on OBaaS with user: " + user);
+			sourceTable = "ADMIN." + legacyTable;
+		}
+		targetTable = user + "." + legacyTable + (isInPlace() ? "_SPRINGAI_VIEW" : "_SPRINGAI");
+		return sourceTable;
+	}
+
+	boolean isInPlace() {
+		return "in_place".equalsIgnoreCase(mode);
+	}
+
+	void insertData() {
+		String user = schema.currentUser();
+		String newTable = legacyTable+"_SPRINGAI";
+		String checkpointTable = newTable + "_MIGRATION";
+
+		resolveSourceTable();
+		if (isInPlace()) {
+			// Searches go straight to the AI Explorer table through a view: nothing to copy
+			logger.info("Vector table mode in_place: serving " + sourceTable + " through " + targetTable);
+			return;
+		}
+		boolean targetEmpty = schema.isEmpty(user, newTable);
+		boolean checkpointExists = schema.exists(user, checkpointTable);
+
+		if (checkpointExists && targetEmpty && countChunks(checkpointTable, "DONE") > 0) {
+			// Target dropped after a completed copy: start over with the new contents
+			logger.info("Table " + user + "." + newTable + " is empty, discarding old checkpoints");
+			jdbcTemplate.execute("DROP TABLE IF EXISTS " + checkpointTable + " PURGE");
+			// And the sync watermark of the old contents: the copy seeds a new one
+			jdbcTemplate.update("UPDATE " + VectorTableSync.prepare(jdbcTemplate, targetTable)
+					+ " SET WATERMARK = NULL WHERE ID = 1");
+			schema.invalidate(user, checkpointTable);
+			checkpointExists = false;
+		}
+		if (!checkpointExists && !targetEmpty) {
+			// Table conversion already done
+			logger.info("Table +"+ newTable+" exists: drop before if you want use with new contents " + legacyTable);
+			return;
+		}
+		if (!checkpointExists) {
+			// IF NOT EXISTS: another replica may be creating it at the same time
+			jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + checkpointTable + " ("
+					+ "CHUNK_NO NUMBER PRIMARY KEY, "
+					+ "LO_ID VARCHAR2(4000), "
+					+ "HI_ID VARCHAR2(4000), "
+					+ "ROWS_EXPECTED NUMBER, "
+					+ "ROWS_COPIED NUMBER DEFAULT 0, "
+					+ "STATUS VARCHAR2(16), "
+					+ "OWNER VARCHAR2(128), "
+					+ "UPDATED_AT TIMESTAMP DEFAULT SYSTIMESTAMP)");
+			schema.invalidate(user, checkpointTable);
+		}
+		if (countChunks(checkpointTable, null) == 0) {
+			// First microservice execution: split the source in ID ranges of chunk_size rows
+			String owner = sourceTable.substring(0, sourceTable.indexOf('.'));
+			logger.info("Table " + user + "." + newTable+ " is empty: planning copy of about "
+					+ schema.rowEstimate(owner, legacyTable) + " rows from " + sourceTable
+					+ " in chunks of " + chunkSize + " rows");
+			VectorTableSync.seed(jdbcTemplate, sourceTable, targetTable);
+			try {
+				jdbcTemplate.update("INSERT INTO " + checkpointTable + " (CHUNK_NO, LO_ID, HI_ID, ROWS_EXPECTED, STATUS) "
+						+ "SELECT B, MIN(ID), MAX(ID), COUNT(*), 'PENDING' FROM "
+						+ "(SELECT ID, CEIL(ROW_NUMBER() OVER (ORDER BY ID) / ?) B FROM " + sourceTable + ") "
+						+ "GROUP BY B", chunkSize);
+			} catch (DuplicateKeyException e) {
+				logger.info("Copy of " + sourceTable + " already planned by another replica");
+			}
+		}
+
+		rowsTotal.set(jdbcTemplate.queryForObject(
+				"SELECT NVL(SUM(ROWS_EXPECTED), 0) FROM " + checkpointTable, Long.class));
+		rowsCopied.set(copiedRows(checkpointTable));
+		List<Map<String, Object>> pending = pendingChunks(checkpointTable);
+		logger.info("Copying " + pending.size() + " pending chunks into " + user + "." + newTable + " with "
+				+ parallelDegree + " workers as " + instance + ", " + rowsCopied.get() + " of " + rowsTotal.get()
+				+ " rows already copied");
+
+		String insert = "INSERT INTO " + user + "." + newTable + " (ID, CONTENT, METADATA, EMBEDDING) "
+				+ "SELECT ID, TEXT, METADATA, EMBEDDING FROM " + sourceTable + " WHERE ID BETWEEN ? AND ?";
+		// Committed on its own, so that the other replicas see the claim before the copy starts
+		String claim = "UPDATE " + checkpointTable + " SET STATUS = 'RUNNING', OWNER = ?, UPDATED_AT = SYSTIMESTAMP "
+				+ "WHERE CHUNK_NO = ? AND STATUS <> 'DONE' AND (OWNER IS NULL OR OWNER = ? "
+				+ "OR UPDATED_AT < SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND'))";
+		String checkpoint = "UPDATE " + checkpointTable
+				+ " SET STATUS = 'DONE', ROWS_COPIED = ?, UPDATED_AT = SYSTIMESTAMP WHERE CHUNK_NO = ? AND OWNER = ?";
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		ExecutorService workers = Executors.newFixedThreadPool(parallelDegree);
+		try {
+			while (!pending.isEmpty()) {
+				List<Future<?>> chunks = new ArrayList<>();
+				for (Map<String, Object> chunk : pending) {
+					chunks.add(workers.submit(() -> {
+						if (jdbcTemplate.update(claim, instance, chunk.get("CHUNK_NO"), instance,
+								claimTimeout.toSeconds()) == 0) {
+							return;
+						}
+						// Rows and checkpoint commit together, so an interrupted copy resumes at the next chunk
+						Integer rows = transaction.execute(status -> {
+							int copied = jdbcTemplate.update(insert, chunk.get("LO_ID"), chunk.get("HI_ID"));
+							if (jdbcTemplate.update(checkpoint, copied, chunk.get("CHUNK_NO"), instance) == 0) {
+								// Our claim expired and was taken over: leave the chunk to its new owner
+								status.setRollbackOnly();
+								return 0;
+							}
+							return copied;
+						});
+						rowsCopied.addAndGet(rows);
+					}));
+				}
+				for (Future<?> chunk : chunks) {
+					chunk.get();
+				}
+				pending = pendingChunks(checkpointTable);
+				rowsCopied.set(copiedRows(checkpointTable));
+				if (!pending.isEmpty()) {
+					// Claimed by other replicas: wait for them to finish, or for their claims to expire
+					logger.info(pending.size() + " chunks still being copied by other replicas, waiting");
+					Thread.sleep(CLAIM_POLL.toMillis());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Vector table copy interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Vector table copy failed: " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			workers.shutdownNow();
+			schema.invalidate(user, newTable);
+		}
+		logger.info("Copied " + rowsCopied.get() + " rows in "
+				+ Duration.between(startedAt, Instant.now()).toSeconds() + " s");
+	}
+
+	private List<Map<String, Object>> pendingChunks(String checkpointTable) {
+		return jdbcTemplate.queryForList(
+				"SELECT CHUNK_NO, LO_ID, HI_ID FROM " + checkpointTable + " WHERE STATUS <> 'DONE' ORDER BY CHUNK_NO");
+	}
+
+	private long copiedRows(String checkpointTable) {
+		return jdbcTemplate.queryForObject(
+				"SELECT NVL(SUM(ROWS_COPIED), 0) FROM " + checkpointTable + " WHERE STATUS = 'DONE'", Long.class);
+	}
+
+	private long countChunks(String checkpointTable, String status) {
+		String sql = "SELECT COUNT(*) FROM " + checkpointTable;
+		if (status == null) {
+			return jdbcTemplate.queryForObject(sql, Long.class);
+		}
+		return jdbcTemplate.queryForObject(sql + " WHERE STATUS = ?", Long.class, status);
+	}
+
+	double rowsPerSecond() {
+		Instant started = startedAt;
+		if (started == null) {
+			return 0;
+		}
+		double seconds = Math.max(1, Duration.between(started, Instant.now()).toSeconds());
+		return rowsCopied.get() / seconds;
+	}
+
+	@Override
+	public Health health() {
+		Health.Builder builder = switch (state) {
+			case COMPLETED -> Health.up();
+			case FAILED -> Health.down();
+			default -> Health.outOfService();
+		};
+		builder.withDetail("state", state)
+				.withDetail("attempts", attempts.get())
+				.withDetail("rowsCopied", rowsCopied.get())
+				.withDetail("rowsTotal", rowsTotal.get());
+		double rate = rowsPerSecond();
+		builder.withDetail("rowsPerSecond", rate);
+		long remaining = rowsTotal.get() - rowsCopied.get();
+		if (state == State.RUNNING && rate > 0 && remaining > 0) {
+			builder.withDetail("eta", Duration.ofSeconds((long) (remaining / rate)).toString());
+		}
+		if (lastError != null) {
+			builder.withDetail("error", lastError);
+		}
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps {@code <VECTOR_STORE>_SPRINGAI} in step with the AI Explorer table after
+ * the initial copy. Every cycle merges the source rows changed since the last
+ * ORA_ROWSCN watermark, inserts the rows still missing (anti-join on ID) and
+ * deletes the orphans. The watermark is kept in {@code <VECTOR_STORE>_SPRINGAI_SYNC}.
+ * Its row is locked for the cycle: replicas that find it locked, or see that another
+ * one synced within half an interval, skip their cycle.
+ */
+@Component
+class VectorTableSync {
+
+	private static final Logger logger = LoggerFactory.getLogger(VectorTableSync.class);
+
+	@Value("${aims.vectortable.sync.enabled:true}")
+	private boolean enabled;
+
+	@Value("${aims.vectortable.sync.interval:PT5M}")
+	private Duration interval;
+
+	private final VectorTableMigration migration;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transaction;
+
+	private final Counter merged;
+
+	private final Counter inserted;
+
+	private final Counter deleted;
+
+	private final ApplicationEventPublisher events;
+
+	VectorTableSync(VectorTableMigration migration, JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager, ApplicationEventPublisher events, MeterRegistry registry) {
+		this.migration = migration;
+		this.jdbcTemplate = jdbcTemplate;
+		this.events = events;
+		this.transaction = new TransactionTemplate(transactionManager);
+		this.merged = registry.counter("aims.vectortable.sync.rows", "operation", "merged");
+		this.inserted = registry.counter("aims.vectortable.sync.rows", "operation", "inserted");
+		this.deleted = registry.counter("aims.vectortable.sync.rows", "operation", "deleted");
+	}
+
+	@Scheduled(initialDelayString = "${aims.vectortable.sync.interval:PT5M}",
+			fixedDelayString = "${aims.vectortable.sync.interval:PT5M}")
+	void sync() {
+		if (!enabled || migration.isInPlace() || !migration.isCompleted()) {
+			return;
+		}
+		String source = migration.getSourceTable();
+		String target = migration.getTargetTable();
+		try {
+			String syncTable = prepare(jdbcTemplate, target);
+			long start = System.currentTimeMillis();
+			int[] counts = transaction.execute(status -> cycle(source, target, syncTable));
+			if (counts == null) {
+				return;
+			}
+			merged.increment(counts[0]);
+			inserted.increment(counts[1]);
+			deleted.increment(counts[2]);
+			logger.info("Synced " + target + " from " + source + " in " + (System.currentTimeMillis() - start)
+					+ " ms: merged " + counts[0] + ", inserted " + counts[1] + ", deleted " + counts[2]);
+			int changed = counts[0] + counts[1] + counts[2];
+			if (changed > 0) {
+				events.publishEvent(new VectorTableChangedEvent(target, changed));
+			}
+		} catch (Exception e) {
+			logger.error("Error syncing " + target + " from " + source + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Whether the sync runs, so that {@link #watermark} follows the source table.
+	 */
+	boolean isActive() {
+		return enabled && !migration.isInPlace();
+	}
+
+	/**
+	 * The ORA_ROWSCN watermark of the last sync, shared by all replicas: it only moves
+	 * when the source table changed. 0 before the first sync or when there is none.
+	 */
+	long watermark() {
+		if (!enabled || migration.isInPlace() || migration.getTargetTable() == null) {
+			return 0;
+		}
+		try {
+			List<Long> watermarks = jdbcTemplate.queryForList("SELECT WATERMARK FROM " + migration.getTargetTable()
+					+ "_SYNC WHERE ID = 1", Long.class);
+			return watermarks.isEmpty() || watermarks.get(0) == null ? 0 : watermarks.get(0);
+		} catch (DataAccessException e) {
+			// No sync table yet
+			return 0;
+		}
+	}
+
+	/**
+	 * Creates {@code <target>_SYNC} and its single row, if needed, and returns its name.
+	 */
+	static String prepare(JdbcTemplate jdbcTemplate, String target) {
+		String syncTable = target + "_SYNC";
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + syncTable
+				+ " (ID NUMBER PRIMARY KEY, WATERMARK NUMBER, LAST_RUN TIMESTAMP)");
+		try {
+			jdbcTemplate.update("INSERT INTO " + syncTable + " (ID) SELECT 1 FROM DUAL "
+					+ "WHERE NOT EXISTS (SELECT 1 FROM " + syncTable + " WHERE ID = 1)");
+		} catch (DuplicateKeyException e) {
+			// Inserted by another replica meanwhile
+		}
+		return syncTable;
+	}
+
+	/**
+	 * Called by the copy before it starts, so that the first cycle merges the rows changed
+	 * while or after they were copied. An older watermark is kept: it only merges more.
+	 */
+	static void seed(JdbcTemplate jdbcTemplate, String source, String target) {
+		String syncTable = prepare(jdbcTemplate, target);
+		long watermark = jdbcTemplate.queryForObject("SELECT NVL(MAX(ORA_ROWSCN), 0) FROM " + source, Long.class);
+		jdbcTemplate.update("UPDATE " + syncTable + " SET WATERMARK = ? WHERE ID = 1 "
+				+ "AND (WATERMARK IS NULL OR WATERMARK > ?)", watermark, watermark);
+		logger.info("Sync of " + target + " will start from " + source + " at watermark " + watermark);
+	}
+
+	/**
+	 * One sync cycle, in the transaction holding the lock on the sync row. Null when skipped.
+	 */
+	private int[] cycle(String source, String target, String syncTable) {
+		Map<String, Object> row;
+		try {
+			row = jdbcTemplate.queryForMap("SELECT WATERMARK, CASE WHEN LAST_RUN > SYSTIMESTAMP - "
+					+ "NUMTODSINTERVAL(?, 'SECOND') THEN 1 ELSE 0 END RECENT FROM " + syncTable
+					+ " WHERE ID = 1 FOR UPDATE NOWAIT", interval.toSeconds() / 2);
+		} catch (CannotAcquireLockException e) {
+			logger.info("Sync of " + target + " running on another replica, skipping this cycle");
+			return null;
+		}
+		if (((Number) row.get("RECENT")).intValue() == 1) {
+			logger.debug("Sync of " + target + " done by another replica meanwhile, skipping this cycle");
+			return null;
+		}
+		Number watermark = (Number) row.get("WATERMARK");
+		// Taken before the changes: rows committed meanwhile are picked up next cycle
+		long newWatermark = jdbcTemplate.queryForObject("SELECT NVL(MAX(ORA_ROWSCN), 0) FROM " + source, Long.class);
+
+		int mergedRows = 0;
+		if (watermark != null) {
+			mergedRows = jdbcTemplate.update("MERGE INTO " + target + " t USING "
+					+ "(SELECT ID, TEXT, METADATA, EMBEDDING FROM " + source + " WHERE ORA_ROWSCN > ?) s "
+					+ "ON (t.ID = s.ID) "
+					+ "WHEN MATCHED THEN UPDATE SET t.CONTENT = s.TEXT, t.METADATA = s.METADATA, t.EMBEDDING = s.EMBEDDING "
+					+ "WHEN NOT MATCHED THEN INSERT (ID, CONTENT, METADATA, EMBEDDING) "
+					+ "VALUES (s.ID, s.TEXT, s.METADATA, s.EMBEDDING)", watermark.longValue());
+		}
+		int insertedRows = jdbcTemplate.update("INSERT INTO " + target + " (ID, CONTENT, METADATA, EMBEDDING) "
+				+ "SELECT s.ID, s.TEXT, s.METADATA, s.EMBEDDING FROM " + source + " s "
+				+ "WHERE NOT EXISTS (SELECT 1 FROM " + target + " t WHERE t.ID = s.ID)");
+		int deletedRows = jdbcTemplate.update("DELETE FROM " + target + " t "
+				+ "WHERE NOT EXISTS (SELECT 1 FROM " + source + " s WHERE s.ID = t.ID)");
+
+		jdbcTemplate.update("UPDATE " + syncTable + " SET WATERMARK = ?, LAST_RUN = SYSTIMESTAMP WHERE ID = 1",
+				newWatermark);
+		return new int[] { mergedRows, insertedRows, deletedRows };
+	}
+
+}
@@ -0,0 +1,207 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	@Test
+	void growsByOnePerWindowOfSuccesses() {
+		AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 6, 0, Duration.ZERO);
+
+		for (int i = 0; i < 4; i++) {
+			limiter.execute(() -> "ok");
+		}
+		assertThat(limiter.getLimit()).isBetween(4.9, 5.0);
+
+		for (int i = 0; i < 100; i++) {
+			limiter.execute(() -> "ok");
+		}
+		assertThat(limiter.getLimit()).isEqualTo(6);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void shrinksOnFailureDownToTheMinimum() {
+		AdaptiveConcurrencyLimiter limiter = limiter(4, 2, 8, 0, Duration.ZERO);
+
+		assertThatThrownBy(() -> limiter.execute(() -> {
+			throw new IllegalStateException("model down");
+		})).isInstanceOf(IllegalStateException.class);
+		assertThat(limiter.getLimit()).isCloseTo(3.6, offset(1e-9));
+
+		for (int i = 0; i < 20; i++) {
+			try {
+				limiter.execute(() -> {
+					throw new IllegalStateException("model down");
+				});
+			} catch (IllegalStateException e) {
+				// expected
+			}
+		}
+		assertThat(limiter.getLimit()).isEqualTo(2);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void shrinksWhenTheFirstTokenIsSlow() throws InterruptedException {
+		AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 8, 0, Duration.ZERO);
+		AdaptiveConcurrencyLimiter.Permit fast = limiter.acquire();
+		fast.firstToken();
+		fast.release(true);
+		double grown = limiter.getLimit();
+
+		AdaptiveConcurrencyLimiter.Permit slow = limiter.acquire();
+		Thread.sleep(50);
+		slow.firstToken();
+		slow.release(true);
+
+		assertThat(grown).isGreaterThan(4);
+		assertThat(limiter.getLimit()).isLessThan(grown);
+	}
+
+	@Test
+	void slowGenerationAfterAFastFirstTokenIsNotOverload() throws InterruptedException {
+		AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 8, 0, Duration.ZERO);
+		AdaptiveConcurrencyLimiter.Permit first = limiter.acquire();
+		first.firstToken();
+		first.release(true);
+		double grown = limiter.getLimit();
+
+		AdaptiveConcurrencyLimiter.Permit longAnswer = limiter.acquire();
+		longAnswer.firstToken();
+		Thread.sleep(50);
+		longAnswer.release(true);
+
+		assertThat(limiter.getLimit()).isGreaterThan(grown);
+	}
+
+	@Test
+	void shrinksWhenABlockingCallIsSlow() {
+		AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 8, 0, Duration.ZERO);
+		limiter.execute(() -> sleep(15));
+		double grown = limiter.getLimit();
+
+		limiter.execute(() -> sleep(60));
+
+		assertThat(grown).isGreaterThan(4);
+		assertThat(limiter.getLimit()).isLessThan(grown);
+	}
+
+	@Test
+	void acquireStreamRejectsBeforeTheSubscription() {
+		AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1, 0, Duration.ZERO);
+		Flux<String> tokens = limiter.acquireStream(Schedulers.immediate(), permit -> Flux.just("a"));
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+
+		// Thrown to the caller, before it subscribes
+		assertThatThrownBy(() -> limiter.acquireStream(Schedulers.immediate(), permit -> Flux.just("b")))
+			.isInstanceOf(ConcurrencyLimitExceededException.class);
+
+		assertThat(tokens.collectList().block()).containsExactly("a");
+		assertThat(limiter.getInFlight()).isZero();
+		// A resubscription takes a permit of its own
+		assertThat(tokens.collectList().block()).containsExactly("a");
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void rejectsWith429WhenTheQueueIsFull() {
+		AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1, 0, Duration.ofSeconds(1));
+		AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+
+		assertThatThrownBy(limiter::acquire).isInstanceOf(ConcurrencyLimitExceededException.class)
+			.extracting(e -> ((ConcurrencyLimitExceededException) e).getStatus())
+			.isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+		held.release(true);
+		limiter.acquire().release(true);
+	}
+
+	@Test
+	void rejectsWith503WhenTheWaitTimesOut() {
+		AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 1, 1, Duration.ofMillis(20));
+		AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+
+		assertThatThrownBy(limiter::acquire).isInstanceOf(ConcurrencyLimitExceededException.class)
+			.extracting(e -> ((ConcurrencyLimitExceededException) e).getStatus())
+			.isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(limiter.getQueued()).isZero();
+		held.release(true);
+	}
+
+	@Test
+	void releasesOnce() {
+		AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 2, 0, Duration.ZERO);
+		AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+		limiter.acquire();
+
+		permit.release(true);
+		permit.release(true);
+
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+	}
+
+	@Test
+	void disabledNeverWaits() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", false, 1, 1, 1, 0,
+				Duration.ZERO, 2.0, new SimpleMeterRegistry());
+
+		limiter.acquire();
+		limiter.acquire();
+
+		assertThat(limiter.getInFlight()).isEqualTo(2);
+	}
+
+	@Test
+	void streamHoldsThePermitForTheSubscription() {
+		AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 2, 0, Duration.ZERO);
+		Flux<String> tokens = limiter.stream(Schedulers.immediate(), permit -> Flux.just("a", "b"));
+
+		// Nothing is taken before the subscription
+		assertThat(limiter.getInFlight()).isZero();
+		assertThat(tokens.collectList().block()).containsExactly("a", "b");
+		assertThat(limiter.getInFlight()).isZero();
+
+		Disposable never = limiter.stream(Schedulers.immediate(), permit -> Flux.never()).subscribe();
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+		never.dispose();
+		assertThat(limiter.getInFlight()).isZero();
+
+		assertThatThrownBy(() -> limiter.stream(Schedulers.immediate(),
+				permit -> Flux.error(new IllegalStateException("model down"))).blockLast())
+			.isInstanceOf(IllegalStateException.class);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	private static String sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return "ok";
+	}
+
+	private static AdaptiveConcurrencyLimiter limiter(int initial, int min, int max, int maxQueue, Duration maxWait) {
+		return new AdaptiveConcurrencyLimiter("test", true, initial, min, max, maxQueue, maxWait, 2.0,
+				new SimpleMeterRegistry());
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BatchCompletionServiceTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+
+	private BatchCompletionService service;
+
+	@BeforeEach
+	void service() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		service = new BatchCompletionService(embeddingModel,
+				new QueryEmbeddingCache(registry, true, 1024 * 1024, Duration.ofHours(1)), objectMapper, registry);
+		ReflectionTestUtils.setField(service, "embeddingBatchSize", 64);
+		ReflectionTestUtils.setField(service, "parallelism", 2);
+		ReflectionTestUtils.setField(service, "maxItems", 100);
+		ReflectionTestUtils.setField(service, "timeout", Duration.ofMinutes(1));
+	}
+
+	@AfterEach
+	void close() {
+		service.close();
+	}
+
+	@Test
+	void failedQuestionsHaveOneErrorObject() throws Exception {
+		when(embeddingModel.embed(anyList())).thenAnswer(call -> ((List<?>) call.getArgument(0)).stream()
+				.map(message -> new float[] { 1, 0 })
+				.toList());
+		List<BatchCompletionService.BatchItem> items = service.parse(
+				"{\"messages\": [\"What is RAG?\", {\"id\": \"q2\", \"message\": \"slow\"}, \"broken\"]}", false);
+
+		List<JsonNode> lines = run(items, (message, embedding) -> switch (message) {
+			case "slow" -> throw new DeadlineExceededException("generation", Duration.ofSeconds(2));
+			case "broken" -> throw new IllegalStateException("model down");
+			default -> "Retrieval augmented generation";
+		});
+
+		assertThat(lines).hasSize(4);
+		JsonNode answered = lines.get(0);
+		assertThat(answered.path("choices").get(0).path("message").path("content").asText())
+			.isEqualTo("Retrieval augmented generation");
+
+		JsonNode timedOut = lines.get(1);
+		assertThat(timedOut.path("id").asText()).isEqualTo("q2");
+		assertThat(timedOut.path("error").path("code").asText()).isEqualTo("deadline_exceeded");
+		assertThat(timedOut.path("error").path("param").asText()).isEqualTo("generation");
+		assertThat(timedOut.path("error").has("error")).isFalse();
+
+		JsonNode failed = lines.get(2);
+		assertThat(failed.path("error").path("message").asText()).isEqualTo("model down");
+		assertThat(failed.path("error").path("type").asText()).isEqualTo("server_error");
+		assertThat(failed.path("error").has("error")).isFalse();
+
+		assertThat(lines.get(3).path("stats").path("succeeded").asInt()).isEqualTo(1);
+		assertThat(lines.get(3).path("stats").path("failed").asInt()).isEqualTo(2);
+	}
+
+	@Test
+	void failedBatchHasOneErrorObject() throws Exception {
+		// Fewer vectors than questions
+		when(embeddingModel.embed(anyList())).thenReturn(List.of());
+		List<BatchCompletionService.BatchItem> items = service.parse("[\"What is RAG?\"]", false);
+
+		List<JsonNode> lines = run(items, (message, embedding) -> "unused");
+
+		assertThat(lines).hasSize(1);
+		assertThat(lines.get(0).path("error").path("type").asText()).isEqualTo("server_error");
+		assertThat(lines.get(0).path("error").has("error")).isFalse();
+	}
+
+	/**
+	 * The NDJSON lines written, the answers by index, then the last line.
+	 */
+	private List<JsonNode> run(List<BatchCompletionService.BatchItem> items, BiFunction<String, float[], String> answer)
+			throws Exception {
+		List<String> sent = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(1);
+		service.submit(items, answer, new ResponseBodyEmitter() {
+			@Override
+			public void send(Object object) {
+				sent.add((String) object);
+			}
+
+			@Override
+			public void complete() {
+				done.countDown();
+			}
+		});
+		assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+		List<JsonNode> lines = new ArrayList<>();
+		for (String line : sent) {
+			assertThat(line).endsWith("\n");
+			lines.add(objectMapper.readTree(line));
+		}
+		JsonNode last = lines.remove(lines.size() - 1);
+		lines.sort(Comparator.comparingInt(line -> line.path("index").asInt()));
+		lines.add(last);
+		return lines;
+	}
+
+}
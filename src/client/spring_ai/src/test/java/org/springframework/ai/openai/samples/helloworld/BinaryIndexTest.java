@@ -0,0 +1,87 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BinaryIndexTest {
+
+	private static final int DIMENSIONS = 96;
+
+	@Test
+	void rescoredCandidatesHaveExactDistances() {
+		Random random = new Random(21);
+		BinaryIndex index = index(20);
+		for (int i = 0; i < 1000; i++) {
+			index.add(HnswIndexTest.randomVector(random, DIMENSIONS));
+		}
+
+		for (int q = 0; q < 20; q++) {
+			float[] query = HnswIndexTest.randomVector(random, DIMENSIONS);
+			List<VectorIndex.Neighbor> exact = index.exactSearch(query, 10);
+			List<VectorIndex.Neighbor> found = index.search(query, 10);
+			assertThat(found).hasSize(10);
+			// Whatever the prefilter kept, the returned distances are the float32 ones, nearest first
+			for (VectorIndex.Neighbor neighbor : found) {
+				assertThat(neighbor.distance()).isEqualTo(
+						index.arena().exactDistance(VectorDistance.COSINE, VectorDistance.COSINE.prepare(query),
+								neighbor.node()));
+			}
+			assertThat(found).isSortedAccordingTo((a, b) -> Float.compare(a.distance(), b.distance()));
+			assertThat(found.get(0).distance()).isGreaterThanOrEqualTo(exact.get(0).distance());
+		}
+	}
+
+	@Test
+	void rescoringEveryNodeIsExact() {
+		Random random = new Random(22);
+		BinaryIndex index = index(50);
+		for (int i = 0; i < 500; i++) {
+			index.add(HnswIndexTest.randomVector(random, DIMENSIONS));
+		}
+		index.remove(0);
+
+		for (int q = 0; q < 20; q++) {
+			float[] query = HnswIndexTest.randomVector(random, DIMENSIONS);
+			// k * rescore_factor covers the whole index
+			assertThat(index.search(query, 10)).isEqualTo(index.exactSearch(query, 10));
+		}
+	}
+
+	@Test
+	void storedVectorIsFound() {
+		Random random = new Random(23);
+		BinaryIndex index = index(20);
+		float[][] vectors = new float[1000][];
+		for (int i = 0; i < vectors.length; i++) {
+			vectors[i] = HnswIndexTest.randomVector(random, DIMENSIONS);
+			index.add(vectors[i]);
+		}
+
+		for (int node = 0; node < vectors.length; node += 97) {
+			assertThat(index.search(vectors[node], 1).get(0).node()).isEqualTo(node);
+		}
+	}
+
+	@Test
+	void needsBinaryArena() {
+		assertThatThrownBy(() -> new BinaryIndex(VectorDistance.COSINE,
+				new VectorArena(DIMENSIONS, VectorArena.Encoding.FLOAT32), 10))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static BinaryIndex index(int rescoreFactor) {
+		return new BinaryIndex(VectorDistance.COSINE, new VectorArena(DIMENSIONS, VectorArena.Encoding.BINARY),
+				rescoreFactor);
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+class CircuitBreakerTest {
+
+	private static final RuntimeException FAILURE = new IllegalStateException("503");
+
+	@Test
+	void opensAfterConsecutiveFailures() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofHours(1));
+
+		breaker.onFailure(FAILURE);
+		breaker.onFailure(FAILURE);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(breaker.tryAcquire()).isTrue();
+
+		breaker.onFailure(FAILURE);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void successResetsTheFailureCount() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 2, Duration.ofHours(1));
+
+		breaker.onFailure(FAILURE);
+		breaker.onSuccess();
+		breaker.onFailure(FAILURE);
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void halfOpenLetsOneTrialThrough() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO);
+		breaker.onFailure(FAILURE);
+
+		assertThat(breaker.tryAcquire()).isTrue();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+
+		breaker.onSuccess();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(breaker.tryAcquire()).isTrue();
+	}
+
+	@Test
+	void failedTrialReopens() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 5, Duration.ofMillis(50));
+		for (int i = 0; i < 5; i++) {
+			breaker.onFailure(FAILURE);
+		}
+		assertThat(breaker.tryAcquire()).isFalse();
+
+		await(Duration.ofMillis(60));
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onFailure(FAILURE);
+
+		// One failure is enough in HALF_OPEN
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void cancelledTrialGivesTheSlotBack() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO);
+		breaker.onFailure(FAILURE);
+		assertThat(breaker.tryAcquire()).isTrue();
+
+		breaker.onCancel();
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		assertThat(breaker.tryAcquire()).isTrue();
+	}
+
+	@Test
+	void onlyProviderFailuresCount() {
+		assertThat(FailoverChatModel.isProviderFailure(
+				WebClientResponseException.create(503, "Service Unavailable", null, null, null))).isTrue();
+		assertThat(FailoverChatModel.isProviderFailure(
+				WebClientResponseException.create(429, "Too Many Requests", null, null, null))).isTrue();
+		assertThat(FailoverChatModel.isProviderFailure(
+				WebClientResponseException.create(400, "Bad Request", null, null, null))).isFalse();
+		assertThat(FailoverChatModel.isProviderFailure(
+				new HttpServerErrorException(HttpStatus.BAD_GATEWAY))).isTrue();
+		assertThat(FailoverChatModel.isProviderFailure(
+				new HttpClientErrorException(HttpStatus.UNAUTHORIZED))).isFalse();
+
+		// Spring AI's response error handler: "<status> - <body>"
+		assertThat(FailoverChatModel.isProviderFailure(new NonTransientAiException("429 - rate limited"))).isTrue();
+		assertThat(FailoverChatModel.isProviderFailure(
+				new NonTransientAiException("400 - context_length_exceeded"))).isFalse();
+		assertThat(FailoverChatModel.isProviderFailure(new TransientAiException("500 - oops"))).isTrue();
+
+		assertThat(FailoverChatModel.isProviderFailure(
+				new UncheckedIOException(new ConnectException("Connection refused")))).isTrue();
+		assertThat(FailoverChatModel.isProviderFailure(new IllegalArgumentException("bad prompt"))).isFalse();
+	}
+
+	private static void await(Duration duration) {
+		try {
+			Thread.sleep(duration.toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CompletionCacheTest {
+
+	private static final String MAX_SCN = "SELECT NVL(MAX(ORA_ROWSCN), 0) FROM ";
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+	private final VectorTableSync sync = mock(VectorTableSync.class);
+
+	private final VectorTableMigration migration = mock(VectorTableMigration.class);
+
+	private final Prompt prompt = new Prompt("What is AI Vector Search?");
+
+	private CompletionCache cache;
+
+	@BeforeEach
+	void cache() {
+		ChatModel chatModel = mock(ChatModel.class);
+		when(chatModel.getDefaultOptions()).thenReturn(ChatOptions.builder().model("llama3.1").temperature(0.0).build());
+		DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+		beans.registerSingleton("chatModel", chatModel);
+		cache = new CompletionCache(jdbcTemplate, beans.getBeanProvider(ChatModel.class), sync, migration,
+				new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+		ReflectionTestUtils.setField(cache, "ttl", Duration.ofHours(1));
+		ReflectionTestUtils.setField(cache, "legacyTable", "VECTORS");
+		cache.init();
+	}
+
+	@Test
+	void inPlaceVersionFollowsTheSourceTable() {
+		when(sync.isActive()).thenReturn(false);
+		when(migration.isInPlace()).thenReturn(true);
+		when(migration.getSourceTable()).thenReturn("ADMIN.VECTORS");
+		when(jdbcTemplate.queryForObject(MAX_SCN + "ADMIN.VECTORS", Long.class)).thenReturn(100L, 100L, 250L);
+
+		cache.refreshCorpusVersion();
+		cache.put(prompt, "An answer");
+		cache.refreshCorpusVersion();
+		assertThat(cache.get(prompt)).contains("An answer");
+
+		// A row of the AI Explorer table changed: the entry no longer matches
+		cache.refreshCorpusVersion();
+		assertThat(cache.get(prompt)).isEmpty();
+		verify(sync, never()).watermark();
+	}
+
+	@Test
+	void syncedCopyUsesTheSyncWatermark() {
+		when(sync.isActive()).thenReturn(true);
+		when(sync.watermark()).thenReturn(7L, 8L);
+
+		cache.refreshCorpusVersion();
+		cache.put(prompt, "An answer");
+		assertThat(cache.get(prompt)).contains("An answer");
+
+		cache.refreshCorpusVersion();
+		assertThat(cache.get(prompt)).isEmpty();
+		verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class));
+	}
+
+	@Test
+	void copyWithoutSyncFollowsTheCopy() {
+		when(sync.isActive()).thenReturn(false);
+		when(migration.getTargetTable()).thenReturn("AIMS.VECTORS_SPRINGAI");
+		when(jdbcTemplate.queryForObject(MAX_SCN + "AIMS.VECTORS_SPRINGAI", Long.class)).thenReturn(5L, 6L);
+
+		cache.refreshCorpusVersion();
+		cache.put(prompt, "An answer");
+		cache.refreshCorpusVersion();
+
+		assertThat(cache.get(prompt)).isEmpty();
+	}
+
+}
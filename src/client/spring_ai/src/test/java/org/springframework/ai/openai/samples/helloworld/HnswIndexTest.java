@@ -0,0 +1,114 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class HnswIndexTest {
+
+	private static final int DIMENSIONS = 32;
+
+	@Test
+	void recallAgainstExactSearch() {
+		Random random = new Random(42);
+		HnswIndex index = index(VectorDistance.COSINE);
+		for (int i = 0; i < 2000; i++) {
+			index.add(randomVector(random, DIMENSIONS));
+		}
+
+		int found = 0;
+		int queries = 100;
+		for (int q = 0; q < queries; q++) {
+			float[] query = randomVector(random, DIMENSIONS);
+			Set<Integer> expected = new HashSet<>();
+			index.exactSearch(query, 10).forEach(n -> expected.add(n.node()));
+			found += (int) index.search(query, 10).stream().filter(n -> expected.contains(n.node())).count();
+		}
+		assertThat((double) found / (queries * 10)).isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	void storedVectorIsItsOwnNearestNeighbor() {
+		Random random = new Random(7);
+		HnswIndex index = index(VectorDistance.EUCLIDEAN);
+		float[][] vectors = new float[500][];
+		for (int i = 0; i < vectors.length; i++) {
+			vectors[i] = randomVector(random, DIMENSIONS);
+			index.add(vectors[i]);
+		}
+
+		List<VectorIndex.Neighbor> nearest = index.search(vectors[123], 3);
+
+		assertThat(nearest).hasSize(3);
+		assertThat(nearest.get(0).node()).isEqualTo(123);
+		assertThat(nearest.get(0).distance()).isCloseTo(0f, offset(1e-5f));
+		assertThat(nearest.get(1).distance()).isGreaterThanOrEqualTo(nearest.get(0).distance());
+	}
+
+	@Test
+	void removedNodesAreNotReturned() {
+		Random random = new Random(3);
+		HnswIndex index = index(VectorDistance.DOT);
+		float[][] vectors = new float[300][];
+		for (int i = 0; i < vectors.length; i++) {
+			vectors[i] = randomVector(random, DIMENSIONS);
+			index.add(vectors[i]);
+		}
+		for (int node = 0; node < 300; node += 2) {
+			index.remove(node);
+		}
+
+		assertThat(index.size()).isEqualTo(150);
+		assertThat(index.deletedCount()).isEqualTo(150);
+		for (int q = 0; q < 20; q++) {
+			assertThat(index.search(vectors[q], 10)).allMatch(n -> n.node() % 2 == 1).hasSize(10);
+		}
+	}
+
+	@Test
+	void searchesFromNewThreadsReuseTheScratch() throws InterruptedException {
+		Random random = new Random(4);
+		HnswIndex index = new HnswIndex(VectorDistance.COSINE,
+				new VectorArena(DIMENSIONS, VectorArena.Encoding.INT8, true), 16, 100, 64);
+		for (int i = 0; i < 500; i++) {
+			index.add(randomVector(random, DIMENSIONS));
+		}
+		float[] query = randomVector(random, DIMENSIONS);
+		List<VectorIndex.Neighbor> expected = index.search(query, 10);
+		int created = VectorIndex.Scratch.created();
+
+		// One virtual thread per search, as StageExecutor runs them
+		List<List<VectorIndex.Neighbor>> results = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			Thread.ofVirtual().start(() -> results.add(index.search(query, 10))).join();
+		}
+
+		assertThat(results).hasSize(50).allMatch(expected::equals);
+		assertThat(VectorIndex.Scratch.created()).isEqualTo(created);
+	}
+
+	private static HnswIndex index(VectorDistance distance) {
+		return new HnswIndex(distance, new VectorArena(DIMENSIONS, VectorArena.Encoding.FLOAT32), 16, 100, 64);
+	}
+
+	static float[] randomVector(Random random, int dimensions) {
+		float[] vector = new float[dimensions];
+		for (int i = 0; i < vector.length; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+}
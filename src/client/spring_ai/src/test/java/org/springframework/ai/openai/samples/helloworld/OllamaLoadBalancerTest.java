@@ -0,0 +1,119 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class OllamaLoadBalancerTest {
+
+	private final OllamaLoadBalancer balancer = new OllamaLoadBalancer("http://localhost:11434",
+			List.of("http://ollama-1:11434"), 3, Duration.ofSeconds(1), new SimpleMeterRegistry());
+
+	private final OllamaLoadBalancer.Backend backend = balancer.getBackends().get(0);
+
+	@Test
+	void completedStreamReleasesTheBackend() {
+		WebClient client = client(request -> Mono.just(response(Flux.just(chunk("a"), chunk("b")))));
+
+		assertThat(client.post().uri("http://localhost:11434/api/chat").retrieve().bodyToFlux(String.class)
+				.collectList().block()).isNotEmpty();
+
+		assertThat(backend.getOutstanding()).isZero();
+		assertThat(backend.getLatencyMillis()).isPositive();
+	}
+
+	@Test
+	void cancelledStreamReleasesTheBackendOnce() {
+		WebClient client = client(request -> Mono.just(response(Flux.concat(Flux.just(chunk("a")), Flux.never()))));
+
+		Disposable stream = client.post().uri("http://localhost:11434/api/chat").retrieve()
+				.bodyToFlux(String.class).subscribe();
+		assertThat(backend.getOutstanding()).isEqualTo(1);
+		stream.dispose();
+		stream.dispose();
+
+		assertThat(backend.getOutstanding()).isZero();
+		assertThat(backend.isHealthy()).isTrue();
+	}
+
+	@Test
+	void cancelledBeforeTheResponseReleasesTheBackend() {
+		WebClient client = client(request -> Mono.never());
+
+		Disposable call = client.post().uri("http://localhost:11434/api/chat").retrieve()
+				.bodyToMono(String.class).subscribe();
+		assertThat(backend.getOutstanding()).isEqualTo(1);
+		call.dispose();
+
+		assertThat(backend.getOutstanding()).isZero();
+	}
+
+	@Test
+	void failedExchangeCountsAsFailure() {
+		WebClient client = client(request -> Mono.error(new IllegalStateException("Connection refused")));
+
+		for (int i = 0; i < 3; i++) {
+			client.get().uri("http://localhost:11434/api/tags").retrieve().toBodilessEntity()
+					.onErrorResume(e -> Mono.empty()).block();
+		}
+
+		assertThat(backend.getOutstanding()).isZero();
+		assertThat(backend.isHealthy()).isFalse();
+	}
+
+	@Test
+	void keepsTheBasePathOfTheBackend() {
+		OllamaLoadBalancer proxied = new OllamaLoadBalancer("http://ollama.local/v1/", List.of("https://gpu-1:8443/ollama"),
+				3, Duration.ofSeconds(1), new SimpleMeterRegistry());
+		AtomicReference<URI> sent = new AtomicReference<>();
+		WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+			sent.set(request.url());
+			return Mono.just(response(Flux.empty()));
+		});
+		proxied.customize(builder);
+
+		builder.build().post().uri("http://ollama.local/v1/api/chat?stream=true").retrieve().toBodilessEntity()
+				.block();
+
+		assertThat(sent.get()).isEqualTo(URI.create("https://gpu-1:8443/ollama/api/chat?stream=true"));
+	}
+
+	private WebClient client(Function<ClientRequest, Mono<ClientResponse>> exchange) {
+		WebClient.Builder builder = WebClient.builder().exchangeFunction(exchange::apply);
+		balancer.customize(builder);
+		return builder.build();
+	}
+
+	private static ClientResponse response(Flux<DataBuffer> body) {
+		return ClientResponse.create(HttpStatus.OK).body(body).build();
+	}
+
+	private static DataBuffer chunk(String text) {
+		return DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class VectorArenaTest {
+
+	// Not a multiple of the SIMD lanes nor of the 64 bits of a BINARY word
+	private static final int DIMENSIONS = 37;
+
+	@Test
+	void float32RoundTripIsExactAcrossChunks() {
+		Random random = new Random(1);
+		VectorArena arena = new VectorArena(DIMENSIONS, VectorArena.Encoding.FLOAT32);
+		float[][] vectors = addRandom(arena, random, 17_000);
+
+		float[] decoded = new float[DIMENSIONS];
+		for (int node : new int[] { 0, 16_383, 16_384, 16_999 }) {
+			arena.read(node, decoded);
+			assertThat(decoded).containsExactly(vectors[node]);
+		}
+		assertThat(arena.size()).isEqualTo(17_000);
+	}
+
+	@Test
+	void float16ErrorIsWithinHalfPrecision() {
+		Random random = new Random(2);
+		VectorArena arena = new VectorArena(DIMENSIONS, VectorArena.Encoding.FLOAT16);
+		float[][] vectors = addRandom(arena, random, 200);
+
+		float[] decoded = new float[DIMENSIONS];
+		for (int node = 0; node < vectors.length; node++) {
+			arena.read(node, decoded);
+			for (int i = 0; i < DIMENSIONS; i++) {
+				// 11 significant bits: half an ulp is 2^-11 of the value
+				assertThat(decoded[i]).isCloseTo(vectors[node][i],
+						offset(Math.abs(vectors[node][i]) / 2048 + 1e-7f));
+			}
+		}
+	}
+
+	@Test
+	void int8ErrorIsWithinHalfAStep() {
+		Random random = new Random(3);
+		VectorArena arena = new VectorArena(DIMENSIONS, VectorArena.Encoding.INT8);
+		float[][] vectors = addRandom(arena, random, 200);
+
+		float[] decoded = new float[DIMENSIONS];
+		for (int node = 0; node < vectors.length; node++) {
+			arena.read(node, decoded);
+			float max = 0;
+			for (float v : vectors[node]) {
+				max = Math.max(max, Math.abs(v));
+			}
+			for (int i = 0; i < DIMENSIONS; i++) {
+				assertThat(decoded[i]).isCloseTo(vectors[node][i], offset(max / 254 * 1.001f));
+			}
+		}
+	}
+
+	@Test
+	void int8OfZeroVectorDecodesToZero() {
+		VectorArena arena = new VectorArena(DIMENSIONS, VectorArena.Encoding.INT8);
+		arena.add(new float[DIMENSIONS]);
+
+		float[] decoded = new float[DIMENSIONS];
+		arena.read(0, decoded);
+
+		assertThat(decoded).containsOnly(0f);
+	}
+
+	@Test
+	void quantizedArenaRescoresWithTheOriginals() {
+		Random random = new Random(4);
+		VectorArena arena = new VectorArena(DIMENSIONS, VectorArena.Encoding.INT8, true);
+		float[][] vectors = addRandom(arena, random, 50);
+		float[] query = HnswIndexTest.randomVector(new Random(5), DIMENSIONS);
+
+		assertThat(arena.rescores()).isTrue();
+		for (int node = 0; node < vectors.length; node++) {
+			float exact = VectorDistance.EUCLIDEAN.distance(query, vectors[node]);
+			assertThat(arena.exactDistance(VectorDistance.EUCLIDEAN, query, node)).isCloseTo(exact, offset(1e-4f));
+			// The quantized distance is close, not exact
+			assertThat(arena.distance(VectorDistance.EUCLIDEAN, query, node)).isCloseTo(exact, offset(0.1f));
+		}
+		float[] decoded = new float[DIMENSIONS];
+		arena.read(7, decoded);
+		assertThat(decoded).containsExactly(vectors[7]);
+	}
+
+	@Test
+	void binaryKeepsTheSignsAndTheOriginals() {
+		Random random = new Random(6);
+		VectorArena arena = new VectorArena(DIMENSIONS, VectorArena.Encoding.BINARY);
+		float[][] vectors = addRandom(arena, random, 100);
+
+		long[] signs = new long[VectorArena.words(DIMENSIONS)];
+		float[] decoded = new float[DIMENSIONS];
+		for (int node = 0; node < vectors.length; node++) {
+			assertThat(arena.hamming(VectorArena.signs(vectors[node], signs), node)).isZero();
+			float[] negated = new float[DIMENSIONS];
+			for (int i = 0; i < DIMENSIONS; i++) {
+				negated[i] = -vectors[node][i];
+			}
+			assertThat(arena.hamming(VectorArena.signs(negated, signs), node)).isEqualTo(DIMENSIONS);
+			arena.read(node, decoded);
+			assertThat(decoded).containsExactly(vectors[node]);
+		}
+	}
+
+	@Test
+	void rejectsOtherDimensions() {
+		VectorArena arena = new VectorArena(DIMENSIONS, VectorArena.Encoding.FLOAT32);
+
+		assertThatThrownBy(() -> arena.add(new float[DIMENSIONS + 1])).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static float[][] addRandom(VectorArena arena, Random random, int count) {
+		float[][] vectors = new float[count][];
+		for (int i = 0; i < count; i++) {
+			vectors[i] = HnswIndexTest.randomVector(random, DIMENSIONS);
+			arena.add(vectors[i]);
+		}
+		return vectors;
+	}
+
+}
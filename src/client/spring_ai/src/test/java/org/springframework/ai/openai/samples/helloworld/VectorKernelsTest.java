@@ -0,0 +1,95 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * SimdVectorKernels against ScalarVectorKernels. The sums are added in another order, so
+ * they agree within a rounding error relative to the magnitude of the terms.
+ */
+class VectorKernelsTest {
+
+	private static final VectorKernels SCALAR = new ScalarVectorKernels();
+
+	private static VectorKernels simd;
+
+	@BeforeAll
+	static void simd() {
+		try {
+			simd = SimdVectorKernels.create();
+		} catch (UnsupportedOperationException e) {
+			Assumptions.abort("No SIMD on this CPU: " + e.getMessage());
+		}
+	}
+
+	// Every tail length for up to 16 float lanes, unrolled by 4, and the embedding sizes
+	static IntStream dimensions() {
+		return IntStream.concat(IntStream.rangeClosed(1, 70), IntStream.of(127, 768, 1536, 1539, 3072));
+	}
+
+	@ParameterizedTest
+	@MethodSource("dimensions")
+	void floatKernelsMatchScalar(int dimensions) {
+		Random random = new Random(dimensions);
+		float[] a = random(random, dimensions);
+		float[] b = random(random, dimensions);
+		float magnitude = 0;
+		for (int i = 0; i < dimensions; i++) {
+			magnitude += Math.abs(a[i] * b[i]) + a[i] * a[i] + b[i] * b[i];
+		}
+		float tolerance = 1e-5f * magnitude + 1e-6f;
+
+		assertThat(simd.dot(a, b)).isCloseTo(SCALAR.dot(a, b), offset(tolerance));
+		assertThat(simd.squaredEuclidean(a, b)).isCloseTo(SCALAR.squaredEuclidean(a, b), offset(tolerance));
+		assertThat(simd.cosine(a, b)).isCloseTo(SCALAR.cosine(a, b), offset(1e-5f));
+	}
+
+	@ParameterizedTest
+	@MethodSource("dimensions")
+	void int8KernelsMatchScalar(int dimensions) {
+		Random random = new Random(-dimensions);
+		float[] a = random(random, dimensions);
+		byte[] b = new byte[dimensions];
+		random.nextBytes(b);
+		float magnitude = 0;
+		for (int i = 0; i < dimensions; i++) {
+			magnitude += Math.abs(a[i] * b[i]) + a[i] * a[i] + b[i] * b[i] * 0.0001f;
+		}
+		float tolerance = 1e-5f * magnitude + 1e-6f;
+
+		assertThat(simd.dot(a, b)).isCloseTo(SCALAR.dot(a, b), offset(tolerance));
+		assertThat(simd.squaredEuclidean(a, b, 0.01f)).isCloseTo(SCALAR.squaredEuclidean(a, b, 0.01f),
+				offset(tolerance));
+	}
+
+	@ParameterizedTest
+	@MethodSource("dimensions")
+	void cosineOfZeroVectorIsZero(int dimensions) {
+		float[] a = random(new Random(dimensions), dimensions);
+
+		assertThat(simd.cosine(a, new float[dimensions])).isZero();
+		assertThat(SCALAR.cosine(a, new float[dimensions])).isZero();
+	}
+
+	private static float[] random(Random random, int dimensions) {
+		float[] vector = new float[dimensions];
+		for (int i = 0; i < dimensions; i++) {
+			vector[i] = random.nextFloat() * 2 - 1;
+		}
+		return vector;
+	}
+
+}
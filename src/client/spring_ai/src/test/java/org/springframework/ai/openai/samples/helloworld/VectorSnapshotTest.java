@@ -0,0 +1,130 @@
+/*
+Copyright (c) 2024, 2025, Oracle and/or its affiliates.
+Licensed under the Universal Permissive License v1.0 as shown at http://oss.oracle.com/licenses/upl.
+*/
+
+package org.springframework.ai.openai.samples.helloworld;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VectorSnapshotTest {
+
+	private static final int DIMENSIONS = 24;
+
+	private static final VectorSnapshot.Spec SPEC = new VectorSnapshot.Spec("AIMS.VECTORS_SPRINGAI", "hnsw",
+			VectorDistance.COSINE, VectorArena.Encoding.INT8, true, 8);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void roundTripRestoresVectorsIdsDeletionsAndGraph() throws IOException {
+		Random random = new Random(11);
+		HnswIndex index = newIndex(new VectorArena(DIMENSIONS, VectorArena.Encoding.INT8, true));
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			index.add(HnswIndexTest.randomVector(random, DIMENSIONS));
+			ids.add("id-" + i);
+		}
+		index.remove(5);
+		ids.set(5, null);
+		Path path = directory.resolve("vectors.snapshot");
+
+		long bytes = VectorSnapshot.write(path, SPEC, new VectorSnapshot.Contents(index, ids, 4242L));
+		VectorSnapshot.Contents restored = VectorSnapshot.read(path, SPEC, this::newIndex);
+
+		assertThat(bytes).isEqualTo(Files.size(path));
+		assertThat(restored.watermark()).isEqualTo(4242L);
+		assertThat(restored.ids()).isEqualTo(ids);
+		VectorIndex copy = restored.index();
+		assertThat(copy.nodes()).isEqualTo(300);
+		assertThat(copy.isDeleted(5)).isTrue();
+		float[] expected = new float[DIMENSIONS];
+		float[] actual = new float[DIMENSIONS];
+		for (int node = 0; node < 300; node++) {
+			index.arena().read(node, expected);
+			copy.arena().read(node, actual);
+			assertThat(actual).containsExactly(expected);
+		}
+		for (int q = 0; q < 20; q++) {
+			float[] query = HnswIndexTest.randomVector(random, DIMENSIONS);
+			assertThat(copy.search(query, 10)).isEqualTo(index.search(query, 10));
+		}
+		// The restored index takes new vectors after the mapped ones
+		assertThat(copy.add(HnswIndexTest.randomVector(random, DIMENSIONS))).isEqualTo(300);
+	}
+
+	@Test
+	void rejectsCorruptedChecksum() throws IOException {
+		Path path = write();
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			long position = file.length() / 2;
+			file.seek(position);
+			int value = file.read();
+			file.seek(position);
+			file.write(value ^ 0xFF);
+		}
+
+		assertThatThrownBy(() -> VectorSnapshot.read(path, SPEC, this::newIndex)).isInstanceOf(IOException.class)
+				.hasMessageContaining("checksum");
+	}
+
+	@Test
+	void rejectsTruncatedFile() throws IOException {
+		Path path = write();
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			file.setLength(file.length() - 100);
+		}
+
+		assertThatThrownBy(() -> VectorSnapshot.read(path, SPEC, this::newIndex)).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void rejectsAnotherConfiguration() throws IOException {
+		Path path = write();
+		VectorSnapshot.Spec other = new VectorSnapshot.Spec(SPEC.table(), SPEC.index(), VectorDistance.DOT,
+				SPEC.encoding(), SPEC.originals(), SPEC.m());
+
+		assertThatThrownBy(() -> VectorSnapshot.read(path, other, this::newIndex)).isInstanceOf(IOException.class)
+				.hasMessageContaining("written for");
+	}
+
+	@Test
+	void rejectsAnotherFile() throws IOException {
+		Path path = directory.resolve("other");
+		Files.write(path, new byte[64]);
+
+		assertThatThrownBy(() -> VectorSnapshot.read(path, SPEC, this::newIndex)).isInstanceOf(IOException.class)
+				.hasMessageContaining("not a vector snapshot");
+	}
+
+	private Path write() throws IOException {
+		Random random = new Random(12);
+		HnswIndex index = newIndex(new VectorArena(DIMENSIONS, VectorArena.Encoding.INT8, true));
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			index.add(HnswIndexTest.randomVector(random, DIMENSIONS));
+			ids.add("id-" + i);
+		}
+		Path path = directory.resolve("vectors.snapshot");
+		VectorSnapshot.write(path, SPEC, new VectorSnapshot.Contents(index, ids, 1L));
+		return path;
+	}
+
+	private HnswIndex newIndex(VectorArena arena) {
+		return new HnswIndex(SPEC.distance(), arena, SPEC.m(), 50, 32);
+	}
+
+}